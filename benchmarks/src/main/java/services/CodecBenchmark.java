@@ -0,0 +1,104 @@
+package services;
+
+import model.Employee;
+import model.LeaveRequest;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Conversion BSON <-> modèle (remplace mapToEmployee/mapToLeaveRequest),
+// comparée au décodage en org.bson.Document utilisé auparavant
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+    private final EncoderContext encoderContext = EncoderContext.builder().build();
+
+    private Codec<Employee> employeeCodec;
+    private Codec<LeaveRequest> leaveCodec;
+    private Codec<Document> documentCodec;
+    private Employee employee;
+    private byte[] employeeBytes;
+    private byte[] leaveBytes;
+
+    @Setup
+    public void setUp() {
+        CodecRegistry registry = MongoConfig.codecRegistry();
+        employeeCodec = registry.get(Employee.class);
+        leaveCodec = registry.get(LeaveRequest.class);
+        documentCodec = registry.get(Document.class);
+        employee = new Employee("64b7f0c2a1b2c3d4e5f60718", "Jane Doe", "jane.doe@example.com",
+                "Engineer", "64b7f0c2a1b2c3d4e5f60001", LocalDate.of(2021, 3, 15));
+        employeeBytes = encode(employeeCodec, employee);
+        LeaveRequest leave = new LeaveRequest();
+        leave.setId("64b7f0c2a1b2c3d4e5f60999");
+        leave.setEmployeeId(employee.getId());
+        leave.setStartDate(LocalDate.of(2024, 7, 1));
+        leave.setEndDate(LocalDate.of(2024, 7, 14));
+        leave.setStatus("PENDING");
+        leaveBytes = encode(leaveCodec, leave);
+    }
+
+    @Benchmark
+    public Employee decodeEmployee() {
+        return employeeCodec.decode(reader(employeeBytes), decoderContext);
+    }
+
+    @Benchmark
+    public LeaveRequest decodeLeaveRequest() {
+        return leaveCodec.decode(reader(leaveBytes), decoderContext);
+    }
+
+    // Ancien chemin : Document puis copie champ par champ
+    @Benchmark
+    public Employee decodeEmployeeViaDocument() {
+        Document doc = documentCodec.decode(reader(employeeBytes), decoderContext);
+        Employee emp = new Employee();
+        emp.setId(doc.getObjectId("_id").toHexString());
+        emp.setName(doc.getString("name"));
+        emp.setEmail(doc.getString("email"));
+        emp.setPosition(doc.getString("position"));
+        emp.setDepartmentId(doc.getString("departmentId"));
+        java.util.Date hireDate = doc.getDate("hireDate");
+        emp.setHireDate(hireDate != null ? ModelCodecProvider.toLocalDate(hireDate.getTime()) : null);
+        return emp;
+    }
+
+    @Benchmark
+    public byte[] encodeEmployee() {
+        return encode(employeeCodec, employee);
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    private <T> byte[] encode(Codec<T> codec, T value) {
+        BasicOutputBuffer output = new BasicOutputBuffer(128);
+        codec.encode(new BsonBinaryWriter(output), value, encoderContext);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Conversions LocalDate <-> date MongoDB (anciens convertToDate/convertToLocalDate)
+// Dans le paquet services pour accéder aux méthodes de ModelCodecProvider
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateConversionBenchmark {
+    private LocalDate date = LocalDate.of(2024, 7, 1);
+    private long epochMillis = ModelCodecProvider.toEpochMillis(date);
+
+    @Benchmark
+    public long toEpochMillis() {
+        return ModelCodecProvider.toEpochMillis(date);
+    }
+
+    @Benchmark
+    public LocalDate toLocalDate() {
+        return ModelCodecProvider.toLocalDate(epochMillis);
+    }
+}
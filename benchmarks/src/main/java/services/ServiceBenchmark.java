@@ -0,0 +1,134 @@
+package services;
+
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Chemins de lecture des services sur le stockage embarqué (pas de serveur MongoDB),
+// avec un jeu de données généré : employés, départements et demandes de congé
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final String[] STATUSES = {"PENDING", "APPROVED", "REJECTED"};
+
+    @Param({"10000"})
+    public int employees;
+
+    @Param({"50000"})
+    public int leaves;
+
+    private Path directory;
+    private EmployeeService employeeService;
+    private DepartmentService departmentService;
+    private LeaveService leaveService;
+    private List<LeaveRequest> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ems-bench");
+        System.setProperty(Repositories.STORE_PROPERTY, "embedded");
+        System.setProperty("ems.store.dir", directory.toString());
+        System.setProperty("ems.store.sync", "false");
+        employeeService = new EmployeeService();
+        departmentService = new DepartmentService();
+        leaveService = new LeaveService();
+
+        List<String> departmentIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Department dept = new Department(null, "Department " + i, null);
+            departmentService.save(dept);
+            departmentIds.add(dept.getId());
+        }
+        List<String> employeeIds = new ArrayList<>();
+        for (int i = 0; i < employees; i++) {
+            Employee emp = new Employee(null, "Employee " + i, "employee" + i + "@example.com", "Staff",
+                    departmentIds.get(i % departmentIds.size()), LocalDate.of(2015, 1, 1).plusDays(i % 3000));
+            employeeService.save(emp);
+            employeeIds.add(emp.getId());
+        }
+        for (int i = 0; i < leaves; i++) {
+            LeaveRequest leave = new LeaveRequest();
+            leave.setEmployeeId(employeeIds.get(i % employeeIds.size()));
+            leave.setStartDate(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            leave.setEndDate(leave.getStartDate().plusDays(i % 10));
+            leave.setStatus(STATUSES[i % STATUSES.length]);
+            // Nom résolu par les benchmarks, pas à l'insertion
+            leave.setEmployeeName("");
+            leaveService.save(leave);
+        }
+        page = leaveService.findPage(null, 0, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Repositories.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Employee> findAllEmployees() {
+        return employeeService.findAll();
+    }
+
+    // Toutes les demandes, noms d'employés résolus par lots
+    @Benchmark
+    public List<LeaveRequest> findAllLeaves() {
+        return leaveService.findAll();
+    }
+
+    // Une page de la table des congés (100 lignes, noms résolus)
+    @Benchmark
+    public List<LeaveRequest> findLeavePage() {
+        return leaveService.findPage(null, 0, 100);
+    }
+
+    // Résolution des noms d'une page déjà chargée
+    @Benchmark
+    public Map<String, String> resolveNamesOfPage() {
+        List<String> ids = new ArrayList<>(page.size());
+        for (LeaveRequest leave : page) {
+            ids.add(leave.getEmployeeId());
+        }
+        return employeeService.findNamesByIds(ids);
+    }
+
+    // Compteurs du tableau de bord (DashboardController.loadStats)
+    @Benchmark
+    public long dashboardStats() {
+        long total = employeeService.count().getCount() + departmentService.count().getCount();
+        for (long count : leaveService.countByStatus().values()) {
+            total += count;
+        }
+        return total;
+    }
+}
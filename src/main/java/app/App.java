@@ -1,27 +1,56 @@
 package app;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
+import services.ChangeStreamService;
+import services.IndexManager;
+import services.Metrics;
+import services.MongoService;
+import services.Repositories;
 
 // Classe principale de l'application JavaFX
 public class App extends Application {
     // Point d'entrée de l'interface graphique
     @Override
     public void start(Stage primaryStage) throws Exception {
-        // Charge la page d'accueil (dashboard)
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/dashboard.fxml"));
-        Parent root = loader.load();
-        
-        // Crée la scène avec une taille de 1200x700
-        Scene scene = new Scene(root, 1200, 700);
-        scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-        
-        primaryStage.setTitle("Employee Management System");
-        primaryStage.setScene(scene);
-        primaryStage.show();
+        // Surveille les blocages du thread JavaFX (thread courant)
+        FxWatchdog.start();
+
+        // Affiche la page d'accueil (dashboard) dans une scène de 1200x700, gardée pour toute la session
+        ViewManager views = ViewManager.getInstance();
+        views.start(primaryStage, "/views/dashboard.fxml", "Employee Management System", 1200, 700);
+        // Les autres écrans sont chargés pendant que le dashboard est affiché : la navigation ne fait que changer de racine
+        views.preload("/views/employee.fxml", "/views/department.fxml", "/views/leave.fxml");
+
+        // Export périodique des mesures si -Dems.metrics.export est renseigné
+        Metrics.getInstance().startExport();
+
+        // Le stockage embarqué n'a pas d'index MongoDB à préparer
+        if (!Repositories.isEmbedded()) {
+            prepareIndexes();
+        }
+    }
+
+    // Crée les index manquants en arrière-plan
+    private void prepareIndexes() {
+        TaskExecutor.getInstance().supply(() -> {
+            IndexManager.ensureIndexes();
+            return null;
+        }).exceptionally(error -> {
+            System.err.println("Error preparing MongoDB indexes: " + error.getMessage());
+            return null;
+        });
+    }
+
+    // Arrête les tâches en arrière-plan à la fermeture
+    @Override
+    public void stop() {
+        FxWatchdog.stop();
+        TaskExecutor.getInstance().shutdown();
+        Metrics.getInstance().stopExport();
+        ChangeStreamService.shutdown();
+        Repositories.shutdown();
+        MongoService.shutdown();
     }
 
     // Méthode main pour lancer l'application
@@ -0,0 +1,24 @@
+package app;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Événement JFR émis quand le thread JavaFX reste bloqué plus longtemps que le seuil
+// (la pile utile est celle du thread JavaFX, relevée par FxWatchdog, pas celle du chien de garde)
+@Name("ems.FxStall")
+@Label("FX Thread Stall")
+@Category({"EMS", "JavaFX"})
+@Description("The JavaFX Application Thread did not process events for longer than the stall threshold")
+@StackTrace(false)
+class FxStallEvent extends Event {
+    @Label("Blocked In")
+    @Description("First application frame on the FX thread when the stall was detected")
+    String blockedIn;
+
+    @Label("FX Stack Trace")
+    String fxStackTrace;
+}
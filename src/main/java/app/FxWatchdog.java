@@ -0,0 +1,109 @@
+package app;
+
+import javafx.application.Platform;
+import services.Metrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Chien de garde du thread JavaFX : poste régulièrement une tâche vide sur le thread JavaFX ;
+// si elle n'est pas exécutée dans le délai, le thread est bloqué (gestionnaire d'événement
+// ou rendu trop long). Sa pile est alors relevée, affichée et enregistrée (événement JFR FxStall).
+// Seuil : -Dems.fxStallThresholdMs=200 (0 pour désactiver)
+public class FxWatchdog implements Runnable {
+    public static final String THRESHOLD_PROPERTY = "ems.fxStallThresholdMs";
+    private static final long DEFAULT_THRESHOLD_MS = 200;
+    private static final long CHECK_INTERVAL_MS = 100;
+    private static final int MAX_LOGGED_FRAMES = 25;
+
+    private static FxWatchdog instance;
+
+    private final Thread fxThread;
+    private final long thresholdMs;
+    private volatile boolean running = true;
+
+    private FxWatchdog(Thread fxThread, long thresholdMs) {
+        this.fxThread = fxThread;
+        this.thresholdMs = thresholdMs;
+    }
+
+    // Démarre la surveillance du thread appelant (à appeler depuis le thread JavaFX)
+    public static synchronized void start() {
+        long thresholdMs = Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MS);
+        if (instance != null || thresholdMs <= 0) {
+            return;
+        }
+        instance = new FxWatchdog(Thread.currentThread(), thresholdMs);
+        Thread thread = new Thread(instance, "fx-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Arrête la surveillance (à la fermeture de l'application)
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.running = false;
+            instance = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                check();
+                Thread.sleep(CHECK_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Un aller-retour sur le thread JavaFX ; relève sa pile s'il dépasse le seuil
+    private void check() throws InterruptedException {
+        FxStallEvent event = new FxStallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        CountDownLatch processed = new CountDownLatch(1);
+        Platform.runLater(processed::countDown);
+        if (processed.await(thresholdMs, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        // Pile relevée au moment où le seuil est franchi : c'est là que le thread est bloqué
+        StackTraceElement[] stack = fxThread.getStackTrace();
+        while (running && !processed.await(CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            // Toujours bloqué : on attend la fin pour connaître la durée totale
+        }
+        long stallMicros = (System.nanoTime() - start) / 1000;
+        event.end();
+        event.blockedIn = blockedIn(stack);
+        event.fxStackTrace = format(stack, Integer.MAX_VALUE);
+        event.commit();
+        Metrics.getInstance().record("fx.stall", stallMicros, 0, 0, false);
+        System.err.println("JavaFX thread blocked for " + stallMicros / 1000 + " ms in " + event.blockedIn
+                + System.lineSeparator() + format(stack, MAX_LOGGED_FRAMES));
+    }
+
+    // Première méthode de l'application dans la pile (contrôleur, service...), sinon le sommet de pile
+    private static String blockedIn(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith("controllers.") || className.startsWith("services.")
+                    || className.startsWith("app.") || className.startsWith("model.")) {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "unknown";
+    }
+
+    private static String format(StackTraceElement[] stack, int maxFrames) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < stack.length && i < maxFrames; i++) {
+            out.append("\tat ").append(stack[i]).append(System.lineSeparator());
+        }
+        if (stack.length > maxFrames) {
+            out.append("\t... ").append(stack.length - maxFrames).append(" more").append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+}
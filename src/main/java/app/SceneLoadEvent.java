@@ -0,0 +1,25 @@
+package app;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Événement JFR couvrant le chargement d'une vue FXML et son affichage
+@Name("ems.SceneLoad")
+@Label("Scene Load")
+@Category({"EMS", "JavaFX"})
+@Description("Loading an FXML view (or reusing the cached one) and showing it on the stage")
+public class SceneLoadEvent extends Event {
+    @Label("View")
+    String view;
+
+    @Label("Cached")
+    @Description("View already loaded or preloaded: only the scene root was swapped")
+    boolean cached;
+
+    public SceneLoadEvent(String view) {
+        this.view = view;
+    }
+}
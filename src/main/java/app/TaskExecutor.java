@@ -0,0 +1,66 @@
+package app;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pool de threads partagé pour les appels aux services (pattern Singleton)
+// Aucun appel MongoDB ne doit s'exécuter sur le thread JavaFX
+public class TaskExecutor {
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static TaskExecutor instance;
+    private final ExecutorService pool;
+
+    // Constructeur privé pour le pattern Singleton
+    private TaskExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "service-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        ((ThreadPoolExecutor) pool).allowCoreThreadTimeOut(true);
+    }
+
+    // Retourne l'instance unique de l'exécuteur (Singleton)
+    public static synchronized TaskExecutor getInstance() {
+        if (instance == null) {
+            instance = new TaskExecutor();
+        }
+        return instance;
+    }
+
+    // Lance un traitement sur le pool ; annuler le résultat retire le traitement de la file s'il n'a pas commencé,
+    // sans interrompre un traitement en cours (une écriture interrompue au milieu d'un appel au driver
+    // ferme la connexion et laisse son résultat inconnu)
+    public <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = pool.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                running.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    // Arrête le pool à la fermeture de l'application
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
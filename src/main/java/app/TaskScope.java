@@ -0,0 +1,96 @@
+package app;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import services.ChangeEvent;
+import services.ChangeStreamService;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Regroupe les tâches en arrière-plan d'un écran pour pouvoir les annuler
+// quand l'utilisateur quitte la page ; les résultats reviennent sur le thread JavaFX
+// Une tâche déjà commencée va jusqu'au bout : l'annulation ne fait que supprimer ses rappels
+public class TaskScope {
+    private final List<CompletableFuture<?>> pending = new CopyOnWriteArrayList<>();
+    private final List<Runnable> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    // Lance un traitement en arrière-plan, rattaché à cet écran
+    public <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> future = TaskExecutor.getInstance().supply(work);
+        pending.add(future);
+        future.whenComplete((value, error) -> pending.remove(future));
+        if (cancelled) {
+            future.cancel(false);
+        }
+        return future;
+    }
+
+    // Exécute un traitement en arrière-plan et affiche une alerte en cas d'erreur
+    public <T> void run(Callable<T> work, Consumer<T> onSuccess) {
+        run(work, onSuccess, TaskScope::showError);
+    }
+
+    // Exécute un traitement en arrière-plan puis rappelle le thread JavaFX
+    public <T> void run(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        onFx(supply(work), onSuccess, onError);
+    }
+
+    // Transmet le résultat d'un traitement au thread JavaFX, sauf si l'écran a été quitté
+    public <T> void onFx(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (cancelled || future.isCancelled()) {
+                return;
+            }
+            if (error == null) {
+                onSuccess.accept(value);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    onError.accept(cause);
+                }
+            }
+        }));
+    }
+
+    // Reçoit sur le thread JavaFX les modifications faites par les autres clients, tant que l'écran est ouvert
+    public <T> void listen(Class<T> type, Consumer<ChangeEvent<T>> onChange) {
+        if (cancelled) {
+            return;
+        }
+        subscriptions.add(ChangeStreamService.getInstance().subscribe(type, event -> Platform.runLater(() -> {
+            if (!cancelled) {
+                onChange.accept(event);
+            }
+        })));
+    }
+
+    // Annule les tâches pas encore commencées, ignore le résultat des autres et coupe les abonnements
+    // (fermeture de la fenêtre)
+    public void cancel() {
+        cancelled = true;
+        subscriptions.forEach(Runnable::run);
+        subscriptions.clear();
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    // Affiche une erreur de service à l'utilisateur
+    public static void showError(Throwable error) {
+        error.printStackTrace();
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText("Operation failed: " + error.getMessage());
+        alert.showAndWait();
+    }
+}
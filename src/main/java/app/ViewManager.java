@@ -0,0 +1,142 @@
+package app;
+
+import javafx.animation.PauseTransition;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Écrans de la fenêtre principale (pattern Singleton) : chaque vue FXML est chargée une seule fois
+// et gardée avec son contrôleur ; naviguer remplace seulement la racine de l'unique Scene.
+// Tout se passe sur le thread JavaFX, comme dans les contrôleurs
+public class ViewManager {
+    // Pause entre deux préchargements : le thread JavaFX reste disponible pour l'utilisateur
+    private static final Duration PRELOAD_DELAY = Duration.millis(300);
+
+    // Contrôleur d'un écran gardé en mémoire
+    public interface Refreshable {
+        // Appelé quand l'écran est de nouveau affiché : recharge ce qui a pu changer pendant qu'il était caché
+        void refresh();
+    }
+
+    // Une vue chargée et son contrôleur
+    private static final class View {
+        private final Parent root;
+        private final Object controller;
+
+        View(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    private static ViewManager instance;
+    private final Map<String, View> views = new HashMap<>();
+    private Stage stage;
+    private Scene scene;
+    private String current;
+
+    private ViewManager() {
+    }
+
+    // Retourne l'instance unique du gestionnaire (Singleton)
+    public static synchronized ViewManager getInstance() {
+        if (instance == null) {
+            instance = new ViewManager();
+        }
+        return instance;
+    }
+
+    // Affiche la première vue dans une nouvelle scène (la seule de la fenêtre principale)
+    public void start(Stage stage, String fxml, String title, double width, double height) throws IOException {
+        SceneLoadEvent event = new SceneLoadEvent(fxml);
+        event.begin();
+        View view = load(fxml);
+        views.put(fxml, view);
+        this.stage = stage;
+        scene = new Scene(view.root, width, height);
+        scene.getStylesheets().add(stylesheet());
+        stage.setScene(scene);
+        stage.setTitle(title);
+        stage.show();
+        current = fxml;
+        event.commit();
+    }
+
+    // Affiche une vue ; déjà chargée (ou préchargée), elle est rafraîchie au lieu d'être recréée
+    public void show(String fxml, String title) {
+        if (fxml.equals(current)) {
+            return;
+        }
+        try {
+            SceneLoadEvent event = new SceneLoadEvent(fxml);
+            event.begin();
+            View view = views.get(fxml);
+            event.cached = view != null;
+            if (view == null) {
+                view = load(fxml);
+                views.put(fxml, view);
+            }
+            scene.setRoot(view.root);
+            stage.setTitle(title);
+            current = fxml;
+            if (event.cached && view.controller instanceof Refreshable) {
+                ((Refreshable) view.controller).refresh();
+            }
+            event.commit();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Charge les vues pas encore chargées, une par pause du thread JavaFX, après l'affichage en cours :
+    // leur premier affichage se limite ensuite à changer la racine de la scène
+    public void preload(String... fxmls) {
+        Deque<String> pending = new ArrayDeque<>(Arrays.asList(fxmls));
+        PauseTransition delay = new PauseTransition(PRELOAD_DELAY);
+        delay.setOnFinished(finished -> {
+            String fxml = pending.poll();
+            if (fxml != null && !views.containsKey(fxml)) {
+                try {
+                    views.put(fxml, warmUp(load(fxml)));
+                } catch (IOException e) {
+                    // Sera chargée à la première navigation
+                    e.printStackTrace();
+                }
+            }
+            if (!pending.isEmpty()) {
+                delay.playFromStart();
+            }
+        });
+        delay.play();
+    }
+
+    // Styles appliqués et habillages (skins) créés dans une scène hors écran, rendue aussitôt
+    private View warmUp(View view) {
+        Scene offscreen = new Scene(view.root);
+        offscreen.getStylesheets().add(stylesheet());
+        view.root.applyCss();
+        view.root.layout();
+        offscreen.setRoot(new Group());
+        return view;
+    }
+
+    private View load(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
+        Parent root = loader.load();
+        return new View(root, loader.getController());
+    }
+
+    private String stylesheet() {
+        return getClass().getResource("/styles.css").toExternalForm();
+    }
+}
@@ -1,5 +1,7 @@
 package controllers;
 
+import app.TaskScope;
+import app.ViewManager;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -7,15 +9,24 @@ import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+import services.ChangeEvent;
+import services.CountResult;
 import services.EmployeeService;
 import services.DepartmentService;
 import services.LeaveService;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 // Contrôleur pour la page d'accueil (Dashboard)
-public class DashboardController {
+public class DashboardController implements ViewManager.Refreshable {
     @FXML
     private Label totalEmployeesLabel;
     @FXML
@@ -34,10 +45,25 @@ public class DashboardController {
     private Button departmentsBtn;
     @FXML
     private Button leavesBtn;
+    @FXML
+    private Button diagnosticsBtn;
 
     private EmployeeService employeeService;
     private DepartmentService departmentService;
     private LeaveService leaveService;
+    private final TaskScope tasks = new TaskScope();
+    private long totalEmployees;
+    private long totalDepartments;
+    // Instants des comptages : un ajout ou une suppression reçu avec un instant antérieur ou égal y est déjà compté
+    private long employeesCountedUntil;
+    private long departmentsCountedUntil;
+    // Modifications reçues avant la fin des comptages, appliquées une fois les nombres connus
+    private final List<Runnable> pendingDeltas = new ArrayList<>();
+    private boolean statsLoading;
+    private int statsGeneration;
+    private boolean leaveCountsLoading;
+    // Un congé a changé pendant le comptage par statut : il faut recompter à la fin
+    private boolean leaveCountsDirty;
 
     // Initialisation au chargement de la page
     @FXML
@@ -47,27 +73,119 @@ public class DashboardController {
         leaveService = new LeaveService();
         setActiveButton(dashboardBtn);
         loadStats();
+        // Compteurs tenus à jour par les modifications des autres clients
+        tasks.listen(Employee.class, event -> applyDelta(event, () -> {
+            if (event.getClusterTime() > employeesCountedUntil) {
+                totalEmployees += delta(event);
+            }
+        }));
+        tasks.listen(Department.class, event -> applyDelta(event, () -> {
+            if (event.getClusterTime() > departmentsCountedUntil) {
+                totalDepartments += delta(event);
+            }
+        }));
+        tasks.listen(LeaveRequest.class, event -> reloadLeaveCounts());
+    }
+
+    // Écran de nouveau affiché : les compteurs sont relus (trois comptages côté serveur)
+    @Override
+    public void refresh() {
+        loadStats();
+    }
+
+    // Applique un ajout ou une suppression aux compteurs, une fois les comptages terminés
+    // (des modifications ont pu être perdues : tout est recompté)
+    private void applyDelta(ChangeEvent<?> event, Runnable delta) {
+        if (event.getType() == ChangeEvent.Type.RELOAD) {
+            loadStats();
+        } else if (statsLoading) {
+            pendingDeltas.add(delta);
+        } else {
+            delta.run();
+            showCounts();
+        }
+    }
+
+    // +1 pour un ajout, -1 pour une suppression
+    private static long delta(ChangeEvent<?> event) {
+        switch (event.getType()) {
+            case INSERT:
+                return 1;
+            case DELETE:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+    // Recompte les congés par statut (un seul $group), sans empiler les requêtes : un changement reçu
+    // pendant le comptage en relance un seul à la fin
+    private void reloadLeaveCounts() {
+        if (leaveCountsLoading) {
+            leaveCountsDirty = true;
+            return;
+        }
+        leaveCountsLoading = true;
+        leaveCountsDirty = false;
+        tasks.run(leaveService::countByStatus, counts -> {
+            leaveCountsLoading = false;
+            showLeaveCounts(counts);
+            if (leaveCountsDirty) {
+                reloadLeaveCounts();
+            }
+        }, error -> {
+            leaveCountsLoading = false;
+            error.printStackTrace();
+        });
     }
 
-    // Charge et affiche les statistiques
+    // Charge et affiche les statistiques (comptages côté serveur, lancés en parallèle)
     private void loadStats() {
-        int totalEmployees = employeeService.findAll().size();
-        int totalDepartments = departmentService.findAll().size();
-        // Compter les congés en attente
-        long pendingLeaves = leaveService.findAll().stream()
-            .filter(l -> "PENDING".equals(l.getStatus()))
-            .count();
-        // Compter les congés approuvés
-        long approvedLeaves = leaveService.findAll().stream()
-            .filter(l -> "APPROVED".equals(l.getStatus()))
-            .count();
-
-        // Afficher les statistiques
+        int expected = ++statsGeneration;
+        statsLoading = true;
+        CompletableFuture<CountResult> totalEmployees = tasks.supply(employeeService::count);
+        CompletableFuture<CountResult> totalDepartments = tasks.supply(departmentService::count);
+        CompletableFuture<Map<String, Long>> leavesByStatus = tasks.supply(leaveService::countByStatus);
+        CompletableFuture<Void> all = CompletableFuture.allOf(totalEmployees, totalDepartments, leavesByStatus);
+        tasks.onFx(all, done -> {
+            if (expected == statsGeneration) {
+                showStats(totalEmployees.join(), totalDepartments.join(), leavesByStatus.join());
+            }
+        }, error -> {
+            if (expected == statsGeneration) {
+                statsLoading = false;
+                pendingDeltas.clear();
+            }
+            TaskScope.showError(error);
+        });
+    }
+
+    // Affiche les statistiques, puis les modifications reçues pendant les comptages qu'ils n'ont pas vues
+    private void showStats(CountResult employees, CountResult departments, Map<String, Long> leavesByStatus) {
+        totalEmployees = employees.getCount();
+        employeesCountedUntil = employees.getClusterTime();
+        totalDepartments = departments.getCount();
+        departmentsCountedUntil = departments.getClusterTime();
+        statsLoading = false;
+        pendingDeltas.forEach(Runnable::run);
+        pendingDeltas.clear();
+        showCounts();
+        showLeaveCounts(leavesByStatus);
+    }
+
+    private void showCounts() {
         totalEmployeesLabel.setText(String.valueOf(totalEmployees));
         totalDepartmentsLabel.setText(String.valueOf(totalDepartments));
-        pendingLeavesLabel.setText(String.valueOf(pendingLeaves));
-        approvedLeavesLabel.setText(String.valueOf(approvedLeaves));
-        
+        showUpdateTime();
+    }
+
+    private void showLeaveCounts(Map<String, Long> leavesByStatus) {
+        pendingLeavesLabel.setText(String.valueOf(leavesByStatus.getOrDefault("PENDING", 0L)));
+        approvedLeavesLabel.setText(String.valueOf(leavesByStatus.getOrDefault("APPROVED", 0L)));
+        showUpdateTime();
+    }
+
+    private void showUpdateTime() {
         refreshLabel.setText("Last updated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
     }
 
@@ -79,46 +197,49 @@ public class DashboardController {
     // Ouvre la page de gestion des employés
     @FXML
     private void openEmployees() {
-        setActiveButton(employeesBtn);
-        loadScene("/views/employee.fxml", "Employee Management");
+        ViewManager.getInstance().show("/views/employee.fxml", "Employee Management");
     }
 
     // Ouvre la page de gestion des départements
     @FXML
     private void openDepartments() {
-        setActiveButton(departmentsBtn);
-        loadScene("/views/department.fxml", "Department Management");
+        ViewManager.getInstance().show("/views/department.fxml", "Department Management");
     }
 
     // Ouvre la page de gestion des congés
     @FXML
     private void openLeaves() {
-        setActiveButton(leavesBtn);
-        loadScene("/views/leave.fxml", "Leave Management");
+        ViewManager.getInstance().show("/views/leave.fxml", "Leave Management");
     }
 
-    // Met en évidence le bouton actif dans le menu
-    private void setActiveButton(Button button) {
-        dashboardBtn.getStyleClass().remove("sidebar-button-active");
-        employeesBtn.getStyleClass().remove("sidebar-button-active");
-        departmentsBtn.getStyleClass().remove("sidebar-button-active");
-        leavesBtn.getStyleClass().remove("sidebar-button-active");
-        
-        button.getStyleClass().add("sidebar-button-active");
-    }
-
-    // Charge une nouvelle page/scène
-    private void loadScene(String fxml, String title) {
+    // Ouvre la fenêtre de diagnostic (latences des services et de MongoDB)
+    @FXML
+    private void openDiagnostics() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/diagnostics.fxml"));
             Parent root = loader.load();
+            DiagnosticsController controller = loader.getController();
+
             Scene scene = new Scene(root);
             scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-            Stage stage = (Stage) totalEmployeesLabel.getScene().getWindow();
+            Stage stage = new Stage();
             stage.setScene(scene);
-            stage.setTitle(title);
+            stage.setTitle("Diagnostics");
+            stage.initOwner(diagnosticsBtn.getScene().getWindow());
+            stage.setOnHidden(event -> controller.stop());
+            stage.show();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    // Met en évidence le bouton actif dans le menu
+    private void setActiveButton(Button button) {
+        dashboardBtn.getStyleClass().remove("sidebar-button-active");
+        employeesBtn.getStyleClass().remove("sidebar-button-active");
+        departmentsBtn.getStyleClass().remove("sidebar-button-active");
+        leavesBtn.getStyleClass().remove("sidebar-button-active");
+        
+        button.getStyleClass().add("sidebar-button-active");
+    }
 }
@@ -1,5 +1,7 @@
 package controllers;
 
+import app.TaskScope;
+import app.ViewManager;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -11,9 +13,13 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.Department;
+import services.ChangeEvent;
+import services.ChangeStreamService;
+import services.ImportService;
 import services.DepartmentService;
+import services.EmployeeService;
 
-public class DepartmentController {
+public class DepartmentController implements ViewManager.Refreshable {
     @FXML
     private TableView<Department> departmentTable;
     @FXML
@@ -23,6 +29,8 @@ public class DepartmentController {
     @FXML
     private Button addButton;
     @FXML
+    private Button importButton;
+    @FXML
     private Button editButton;
     @FXML
     private Button deleteButton;
@@ -36,14 +44,50 @@ public class DepartmentController {
     private Button leavesBtn;
 
     private DepartmentService departmentService;
+    private EmployeeService employeeService;
     private ObservableList<Department> departmentList;
+    private final TaskScope tasks = new TaskScope();
 
     @FXML
     public void initialize() {
         departmentService = new DepartmentService();
+        employeeService = new EmployeeService();
         departmentList = FXCollections.observableArrayList();
         setupTable();
         loadDepartments();
+        tasks.listen(Department.class, this::applyChange);
+    }
+
+    // Écran de nouveau affiché : la liste n'est à relire que si le flux de changements ne la suit pas
+    @Override
+    public void refresh() {
+        if (!ChangeStreamService.getInstance().isLive(Department.class)) {
+            loadDepartments();
+        }
+    }
+
+    // Applique une modification reçue du flux de changements (autre client ou écho des nôtres)
+    private void applyChange(ChangeEvent<Department> event) {
+        if (event.getType() == ChangeEvent.Type.RELOAD) {
+            // Des modifications ont pu être perdues : tout est relu
+            loadDepartments();
+            return;
+        }
+        if (event.getType() == ChangeEvent.Type.DELETE) {
+            departmentList.removeIf(dept -> event.getId().equals(dept.getId()));
+            return;
+        }
+        Department changed = event.getDocument();
+        for (Department dept : departmentList) {
+            if (dept.getId().equals(event.getId())) {
+                dept.setName(changed.getName());
+                dept.setDescription(changed.getDescription());
+                dept.setMaxConcurrentAbsences(changed.getMaxConcurrentAbsences());
+                departmentTable.refresh();
+                return;
+            }
+        }
+        departmentList.add(changed);
     }
 
     private void setupTable() {
@@ -57,8 +101,7 @@ public class DepartmentController {
     }
 
     private void loadDepartments() {
-        departmentList.clear();
-        departmentList.addAll(departmentService.findAll());
+        tasks.run(departmentService::findAll, departments -> departmentList.setAll(departments));
     }
 
     @FXML
@@ -66,6 +109,13 @@ public class DepartmentController {
         showDepartmentForm(null);
     }
 
+    @FXML
+    private void handleImport() {
+        ImportDialog.show("Import Departments", importButton, tasks,
+                (file, listener) -> new ImportService().importDepartments(file, listener),
+                this::loadDepartments);
+    }
+
     @FXML
     private void handleEdit() {
         Department selected = departmentTable.getSelectionModel().getSelectedItem();
@@ -80,14 +130,20 @@ public class DepartmentController {
     private void handleDelete() {
         Department selected = departmentTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-            alert.setTitle("Confirm Delete");
-            alert.setHeaderText("Delete Department");
-            alert.setContentText("Are you sure you want to delete " + selected.getName() + "?");
-            if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                departmentService.delete(selected.getId());
-                loadDepartments();
-            }
+            // La confirmation indique combien d'employés resteront sans département
+            tasks.run(() -> employeeService.findByDepartmentId(selected.getId()).size(), employees -> {
+                Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+                alert.setTitle("Confirm Delete");
+                alert.setHeaderText("Delete Department");
+                alert.setContentText("Are you sure you want to delete " + selected.getName() + "?"
+                        + (employees > 0 ? "\n" + employees + " employee(s) will be left without a department." : ""));
+                if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+                    tasks.run(() -> {
+                        departmentService.delete(selected.getId());
+                        return null;
+                    }, done -> departmentList.remove(selected));
+                }
+            });
         } else {
             showAlert("Please select a department to delete");
         }
@@ -95,14 +151,12 @@ public class DepartmentController {
 
     @FXML
     private void handleDashboard() {
-        setActiveButton(dashboardBtn);
-        loadScene("/views/dashboard.fxml", "Dashboard");
+        ViewManager.getInstance().show("/views/dashboard.fxml", "Dashboard");
     }
 
     @FXML
     private void handleEmployees() {
-        setActiveButton(employeesBtn);
-        loadScene("/views/employee.fxml", "Employee Management");
+        ViewManager.getInstance().show("/views/employee.fxml", "Employee Management");
     }
 
     @FXML
@@ -112,8 +166,7 @@ public class DepartmentController {
 
     @FXML
     private void handleLeaves() {
-        setActiveButton(leavesBtn);
-        loadScene("/views/leave.fxml", "Leave Management");
+        ViewManager.getInstance().show("/views/leave.fxml", "Leave Management");
     }
 
     private void setActiveButton(Button button) {
@@ -146,21 +199,14 @@ public class DepartmentController {
         }
     }
 
-    public void refreshTable() {
-        loadDepartments();
-    }
-
-    private void loadScene(String fxml, String title) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
-            Parent root = loader.load();
-            Scene scene = new Scene(root);
-            scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-            Stage stage = (Stage) addButton.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Met à jour uniquement la ligne concernée après un ajout ou une modification
+    public void departmentSaved(Department department, boolean created) {
+        if (created) {
+            // Le flux de changements a pu l'ajouter avant nous
+            departmentList.removeIf(dept -> department.getId().equals(dept.getId()));
+            departmentList.add(department);
+        } else {
+            departmentTable.refresh();
         }
     }
 
@@ -1,5 +1,6 @@
 package controllers;
 
+import app.TaskScope;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
@@ -12,11 +13,14 @@ public class DepartmentFormController {
     @FXML
     private TextArea descriptionArea;
     @FXML
+    private TextField maxAbsentField;
+    @FXML
     private Button saveButton;
 
     private Department department;
     private DepartmentController departmentController;
     private DepartmentService departmentService;
+    private final TaskScope tasks = new TaskScope();
 
     @FXML
     public void initialize() {
@@ -28,6 +32,9 @@ public class DepartmentFormController {
         if (department != null) {
             nameField.setText(department.getName());
             descriptionArea.setText(department.getDescription());
+            if (department.getMaxConcurrentAbsences() != null) {
+                maxAbsentField.setText(String.valueOf(department.getMaxConcurrentAbsences()));
+            }
         }
     }
 
@@ -42,16 +49,42 @@ public class DepartmentFormController {
             return;
         }
 
+        // Nombre maximal de personnes absentes le même jour (vide = pas de limite)
+        Integer maxAbsent = null;
+        String maxAbsentText = maxAbsentField.getText().trim();
+        if (!maxAbsentText.isEmpty()) {
+            try {
+                maxAbsent = Integer.parseInt(maxAbsentText);
+            } catch (NumberFormatException e) {
+                maxAbsent = 0;
+            }
+            if (maxAbsent <= 0) {
+                showAlert("Max absent must be a positive whole number, or empty for no limit");
+                return;
+            }
+        }
+
         if (department == null) {
             department = new Department();
         }
 
         department.setName(nameField.getText().trim());
         department.setDescription(descriptionArea.getText().trim());
+        department.setMaxConcurrentAbsences(maxAbsent);
 
-        departmentService.save(department);
-        departmentController.refreshTable();
-        closeWindow();
+        Department toSave = department;
+        boolean created = department.getId() == null;
+        saveButton.setDisable(true);
+        tasks.run(() -> {
+            departmentService.save(toSave);
+            return null;
+        }, done -> {
+            departmentController.departmentSaved(toSave, created);
+            closeWindow();
+        }, error -> {
+            saveButton.setDisable(false);
+            TaskScope.showError(error);
+        });
     }
 
     @FXML
@@ -60,6 +93,7 @@ public class DepartmentFormController {
     }
 
     private void closeWindow() {
+        tasks.cancel();
         Stage stage = (Stage) saveButton.getScene().getWindow();
         stage.close();
     }
@@ -0,0 +1,128 @@
+package controllers;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.stage.FileChooser;
+import javafx.util.Callback;
+import javafx.util.Duration;
+import services.Metrics;
+import services.OperationMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// Fenêtre de diagnostic : latences et volumes par opération, rafraîchis toutes les 2 secondes
+public class DiagnosticsController {
+    @FXML
+    private TableView<OperationMetrics.Snapshot> metricsTable;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, String> operationColumn;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, Long> countColumn;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, Long> errorsColumn;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, String> p50Column;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, String> p99Column;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, String> maxColumn;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, Long> documentsColumn;
+    @FXML
+    private TableColumn<OperationMetrics.Snapshot, Long> bytesColumn;
+    @FXML
+    private Label summaryLabel;
+    @FXML
+    private Button exportButton;
+
+    private Timeline refresher;
+
+    @FXML
+    public void initialize() {
+        operationColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getName()));
+        countColumn.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().getCount()));
+        errorsColumn.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().getErrors()));
+        p50Column.setCellValueFactory(millis(OperationMetrics.Snapshot::getP50));
+        p99Column.setCellValueFactory(millis(OperationMetrics.Snapshot::getP99));
+        maxColumn.setCellValueFactory(millis(OperationMetrics.Snapshot::getMax));
+        documentsColumn.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().getDocuments()));
+        bytesColumn.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().getBytes()));
+        refresh();
+
+        // Les mesures sont en mémoire : pas d'appel en arrière-plan nécessaire
+        refresher = new Timeline(new KeyFrame(Duration.seconds(2), event -> refresh()));
+        refresher.setCycleCount(Timeline.INDEFINITE);
+        refresher.play();
+    }
+
+    // Arrête le rafraîchissement (fermeture de la fenêtre)
+    public void stop() {
+        refresher.stop();
+    }
+
+    // Latence en millisecondes (mesurée en microsecondes)
+    private static Callback<TableColumn.CellDataFeatures<OperationMetrics.Snapshot, String>, ObservableValue<String>> millis(ToLongFunction<OperationMetrics.Snapshot> micros) {
+        return data -> new SimpleStringProperty(String.format("%.2f", micros.applyAsLong(data.getValue()) / 1000.0));
+    }
+
+    private void refresh() {
+        OperationMetrics.Snapshot selected = metricsTable.getSelectionModel().getSelectedItem();
+        List<OperationMetrics.Snapshot> snapshots = Metrics.getInstance().snapshot();
+        metricsTable.setItems(FXCollections.observableArrayList(snapshots));
+        if (selected != null) {
+            snapshots.stream().filter(s -> s.getName().equals(selected.getName())).findFirst()
+                     .ifPresent(s -> metricsTable.getSelectionModel().select(s));
+        }
+        long calls = 0;
+        long commands = 0;
+        for (OperationMetrics.Snapshot snapshot : snapshots) {
+            if (snapshot.getName().startsWith("mongo.")) {
+                commands += snapshot.getCount();
+            } else {
+                calls += snapshot.getCount();
+            }
+        }
+        summaryLabel.setText(calls + " service calls, " + commands + " MongoDB commands");
+    }
+
+    @FXML
+    private void handleReset() {
+        Metrics.getInstance().reset();
+        refresh();
+    }
+
+    // Enregistre le rapport texte (même format que l'export périodique)
+    @FXML
+    private void handleExport() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Metrics");
+        chooser.setInitialFileName("metrics.txt");
+        File file = chooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            Metrics.getInstance().writeReport(file.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Could not write " + file + ": " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package controllers;
 
+import app.TaskScope;
+import app.ViewManager;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,14 +13,36 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.Department;
 import model.Employee;
-import services.EmployeeService;
+import model.NamedItem;
+import services.ChangeEvent;
+import services.ChangeStreamService;
+import services.CountResult;
 import services.DepartmentService;
+import services.EmployeeQuery;
+import services.ExportService;
+import services.ImportService;
+import services.EmployeeService;
+import services.DepartmentCache;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 // Contrôleur pour la page de gestion des employés
-public class EmployeeController {
+public class EmployeeController implements ViewManager.Refreshable {
+    // Nombre maximal de résultats affichés pour une recherche
+    private static final int SEARCH_LIMIT = 500;
+    // Premier choix des listes de filtres : pas de filtre
+    private static final NamedItem ALL_DEPARTMENTS = new NamedItem(null, "All departments");
+    private static final NamedItem ALL_POSITIONS = new NamedItem(null, "All positions");
+
     @FXML
     private TableView<Employee> employeeTable;
     @FXML
@@ -31,8 +56,24 @@ public class EmployeeController {
     @FXML
     private TableColumn<Employee, String> hireDateColumn;
     @FXML
+    private ComboBox<NamedItem> departmentFilter;
+    @FXML
+    private ComboBox<NamedItem> positionFilter;
+    @FXML
+    private DatePicker hiredFromPicker;
+    @FXML
+    private DatePicker hiredToPicker;
+    @FXML
+    private TextField searchField;
+    @FXML
+    private Label searchStatusLabel;
+    @FXML
     private Button addButton;
     @FXML
+    private Button importButton;
+    @FXML
+    private Button exportButton;
+    @FXML
     private Button editButton;
     @FXML
     private Button deleteButton;
@@ -46,17 +87,119 @@ public class EmployeeController {
     private Button leavesBtn;
 
     private EmployeeService employeeService;
-    private DepartmentService departmentService;
-    private ObservableList<Employee> employeeList;
+    private DepartmentCache departmentCache;
+    private PagedList<Employee> employeeList;
+    // Filtres actifs, appliqués par la base (lus par les chargements de pages en arrière-plan)
+    private volatile EmployeeQuery filter = new EmployeeQuery();
+    private boolean updatingFilters;
+    // Tri demandé par l'en-tête de colonne, exécuté par la base (null = ordre de création)
+    private final Map<TableColumn<Employee, ?>, String> sortFields = new HashMap<>();
+    private String sortField;
+    private boolean sortDescending;
+    // Résultats de la recherche en cours : une seule liste, remplie à chaque requête
+    private final ObservableList<Employee> searchResults = FXCollections.observableArrayList();
+    // La recherche part quand l'utilisateur fait une pause dans la saisie
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
+    private int searchGeneration;
+    private final TaskScope tasks = new TaskScope();
 
     // Initialisation au chargement de la page
     @FXML
     public void initialize() {
         employeeService = new EmployeeService();
-        departmentService = new DepartmentService();
-        employeeList = FXCollections.observableArrayList();
+        departmentCache = DepartmentCache.getInstance();
+        employeeList = new PagedList<>(new PagedList.Loader<>() {
+            @Override
+            public CountResult count() {
+                return employeeService.count(filter);
+            }
+
+            @Override
+            public List<Employee> loadPage(Employee from, int skip, int limit) {
+                return employeeService.findPage(filter, from, skip, limit);
+            }
+
+            @Override
+            public String idOf(Employee employee) {
+                return employee.getId();
+            }
+        }, tasks);
         setupTable();
+        setupFilters();
+        setupSearch();
         loadEmployees();
+        tasks.listen(Employee.class, this::applyChange);
+        // Un département renommé ailleurs : le cache est déjà à jour, on redessine
+        // (après une perte du flux, le cache est d'abord relu)
+        tasks.listen(Department.class, event -> {
+            if (event.getType() == ChangeEvent.Type.RELOAD) {
+                loadEmployees();
+            } else {
+                employeeTable.refresh();
+            }
+        });
+    }
+
+    // Écran de nouveau affiché : choix des filtres relus ; la liste n'est rechargée que si le flux
+    // de changements ne la suit pas (sinon seules les lignes sont redessinées, noms de départements)
+    @Override
+    public void refresh() {
+        loadFilterChoices();
+        if (ChangeStreamService.getInstance().isLive(Employee.class)) {
+            employeeTable.refresh();
+        } else {
+            loadEmployees();
+        }
+        if (isSearching()) {
+            runSearch();
+        }
+    }
+
+    // Applique une modification reçue du flux de changements (autre client ou écho des nôtres)
+    private void applyChange(ChangeEvent<Employee> event) {
+        // L'index de recherche suit déjà le flux : on relance simplement la recherche affichée
+        if (isSearching()) {
+            searchDelay.playFromStart();
+        }
+        if (event.getType() == ChangeEvent.Type.RELOAD) {
+            // Des modifications ont pu être perdues : tout est relu
+            loadFilterChoices();
+            loadEmployees();
+            return;
+        }
+        if (event.getType() == ChangeEvent.Type.DELETE) {
+            employeeList.removed(event.getId(), event.getClusterTime());
+            return;
+        }
+        Employee changed = event.getDocument();
+        Employee existing = employeeList.find(event.getId());
+        if (!filter.matches(changed)) {
+            // Ne correspond plus aux filtres (ou jamais) : retiré s'il était affiché
+            if (existing != null) {
+                employeeList.removed(existing);
+            }
+            return;
+        }
+        if (existing != null) {
+            boolean moved = filter.movesInSort(existing, changed);
+            // Même objet modifié en place : la sélection est conservée
+            existing.setName(changed.getName());
+            existing.setEmail(changed.getEmail());
+            existing.setPosition(changed.getPosition());
+            existing.setDepartmentId(changed.getDepartmentId());
+            existing.setHireDate(changed.getHireDate());
+            if (moved) {
+                // Sa place dans le tri a changé : les pages sont relues dans le nouvel ordre
+                employeeList.refresh();
+            } else {
+                employeeList.updated(existing);
+            }
+        } else if (event.getType() == ChangeEvent.Type.INSERT) {
+            showAdded(changed, event.getClusterTime());
+        } else if (!filter.isEmpty()) {
+            // Modifié ailleurs, il entre peut-être dans les filtres : sa position est inconnue
+            employeeList.refresh();
+        }
     }
 
     // Configure les colonnes du tableau
@@ -65,36 +208,173 @@ public class EmployeeController {
         emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
         positionColumn.setCellValueFactory(new PropertyValueFactory<>("position"));
         
-        // Colonne département : affiche le nom du département ou "N/A"
+        // Colonne département : affiche le nom du département ou "N/A" (lu depuis le cache, sans requête)
         departmentColumn.setCellValueFactory(cellData -> {
             Employee emp = cellData.getValue();
-            if (emp.getDepartmentId() != null) {
-                var dept = departmentService.findById(emp.getDepartmentId());
-                String deptName = dept != null ? dept.getName() : "N/A";
-                return javafx.beans.binding.Bindings.createStringBinding(() -> deptName);
+            if (emp == null) {
+                return javafx.beans.binding.Bindings.createStringBinding(() -> "");
             }
-            return javafx.beans.binding.Bindings.createStringBinding(() -> "N/A");
+            String deptName = departmentCache.getName(emp.getDepartmentId());
+            String displayName = deptName != null ? deptName : "N/A";
+            return javafx.beans.binding.Bindings.createStringBinding(() -> displayName);
         });
         
         // Colonne date d'embauche : format yyyy-MM-dd
         hireDateColumn.setCellValueFactory(cellData -> {
             Employee emp = cellData.getValue();
-            if (emp.getHireDate() != null) {
+            if (emp != null && emp.getHireDate() != null) {
                 String formattedDate = emp.getHireDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
                 return javafx.beans.binding.Bindings.createStringBinding(() -> formattedDate);
             }
             return javafx.beans.binding.Bindings.createStringBinding(() -> "");
         });
         
+        // Tri par la base (index par colonne) : un clic sur l'en-tête relit la première page dans le
+        // nouvel ordre, rien n'est trié en mémoire ; le département (nom lu dans le cache) n'est pas triable
+        sortFields.put(nameColumn, "name");
+        sortFields.put(emailColumn, "email");
+        sortFields.put(positionColumn, "position");
+        sortFields.put(hireDateColumn, "hireDate");
+        departmentColumn.setSortable(false);
+        employeeTable.setSortPolicy(table -> {
+            applySort();
+            return true;
+        });
         employeeTable.setItems(employeeList);
         employeeTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         employeeTable.setStyle("-fx-selection-bar: transparent;");
     }
 
+    // Barre de filtres : chaque changement relance le comptage et les pages (filtrés par la base)
+    private void setupFilters() {
+        departmentFilter.getItems().setAll(ALL_DEPARTMENTS);
+        departmentFilter.setValue(ALL_DEPARTMENTS);
+        positionFilter.getItems().setAll(ALL_POSITIONS);
+        positionFilter.setValue(ALL_POSITIONS);
+        departmentFilter.valueProperty().addListener((obs, old, value) -> applyFilters());
+        positionFilter.valueProperty().addListener((obs, old, value) -> applyFilters());
+        hiredFromPicker.valueProperty().addListener((obs, old, value) -> applyFilters());
+        hiredToPicker.valueProperty().addListener((obs, old, value) -> applyFilters());
+        loadFilterChoices();
+    }
+
+    // Départements et postes proposés par les filtres
+    private void loadFilterChoices() {
+        tasks.run(() -> new DepartmentService().findSummaries(), departments -> {
+            List<NamedItem> items = new ArrayList<>(departments);
+            items.add(0, ALL_DEPARTMENTS);
+            setFilterItems(departmentFilter, items);
+        });
+        tasks.run(employeeService::findPositions, positions -> {
+            List<NamedItem> items = new ArrayList<>();
+            items.add(ALL_POSITIONS);
+            positions.forEach(position -> items.add(new NamedItem(position, position)));
+            setFilterItems(positionFilter, items);
+        });
+    }
+
+    // Remplit une liste de filtres en gardant le choix en cours
+    private void setFilterItems(ComboBox<NamedItem> combo, List<NamedItem> items) {
+        String selectedId = combo.getValue() != null ? combo.getValue().getId() : null;
+        updatingFilters = true;
+        combo.getItems().setAll(items);
+        combo.setValue(items.stream().filter(item -> Objects.equals(item.getId(), selectedId))
+                .findFirst().orElse(items.get(0)));
+        updatingFilters = false;
+    }
+
+    private void applyFilters() {
+        if (updatingFilters) {
+            return;
+        }
+        NamedItem department = departmentFilter.getValue();
+        NamedItem position = positionFilter.getValue();
+        filter = new EmployeeQuery()
+                .department(department != null ? department.getId() : null)
+                .position(position != null ? position.getId() : null)
+                .hiredBetween(hiredFromPicker.getValue(), hiredToPicker.getValue())
+                .sortBy(sortField, sortDescending);
+        employeeList.refresh();
+        if (isSearching()) {
+            runSearch();
+        }
+    }
+
+    // Seule la première colonne de l'ordre de tri est prise en compte (un index par colonne)
+    private void applySort() {
+        List<TableColumn<Employee, ?>> order = employeeTable.getSortOrder();
+        TableColumn<Employee, ?> column = order.isEmpty() ? null : order.get(0);
+        String field = column != null ? sortFields.get(column) : null;
+        boolean descending = field != null && column.getSortType() == TableColumn.SortType.DESCENDING;
+        if (Objects.equals(field, sortField) && descending == sortDescending) {
+            return;
+        }
+        sortField = field;
+        sortDescending = descending;
+        applyFilters();
+    }
+
+    @FXML
+    private void handleClearFilters() {
+        updatingFilters = true;
+        departmentFilter.setValue(ALL_DEPARTMENTS);
+        positionFilter.setValue(ALL_POSITIONS);
+        hiredFromPicker.setValue(null);
+        hiredToPicker.setValue(null);
+        updatingFilters = false;
+        applyFilters();
+    }
+
+    // Recherche au fil de la saisie (index en mémoire) ; champ vide = retour à la liste paginée
+    private void setupSearch() {
+        searchDelay.setOnFinished(event -> runSearch());
+        searchField.textProperty().addListener((obs, old, text) -> searchDelay.playFromStart());
+    }
+
+    private boolean isSearching() {
+        return !searchField.getText().trim().isEmpty();
+    }
+
+    // Lance la recherche en arrière-plan ; seule la réponse à la dernière requête est affichée
+    private void runSearch() {
+        String query = searchField.getText().trim();
+        int expected = ++searchGeneration;
+        if (query.isEmpty()) {
+            searchStatusLabel.setText("");
+            searchResults.clear();
+            employeeTable.setItems(employeeList);
+            return;
+        }
+        EmployeeQuery currentFilter = filter;
+        tasks.run(() -> employeeService.search(query, currentFilter, SEARCH_LIMIT), result -> {
+            if (expected != searchGeneration) {
+                return;
+            }
+            // Classés par pertinence, ou dans l'ordre de la colonne triée
+            Comparator<Employee> order = currentFilter.comparator();
+            if (order != null) {
+                List<Employee> sorted = new ArrayList<>(result.getEmployees());
+                sorted.sort(order);
+                searchResults.setAll(sorted);
+            } else {
+                searchResults.setAll(result.getEmployees());
+            }
+            if (employeeTable.getItems() != searchResults) {
+                employeeTable.setItems(searchResults);
+            }
+            int shown = result.getEmployees().size();
+            searchStatusLabel.setText(result.getTotal() == 0 ? "No match"
+                    : result.getTotal() > shown ? "First " + shown + " of " + result.getTotal() + " matches"
+                    : result.getTotal() + " match(es)");
+        });
+    }
+
     // Charge la liste des employés depuis la base de données
     private void loadEmployees() {
-        employeeList.clear();
-        employeeList.addAll(employeeService.findAll());
+        tasks.run(() -> {
+            departmentCache.ensureLoaded();
+            return null;
+        }, done -> employeeList.refresh());
     }
 
     // Ouvre le formulaire pour ajouter un nouvel employé
@@ -103,6 +383,21 @@ public class EmployeeController {
         showEmployeeForm(null);
     }
 
+    // Importe des employés depuis un fichier CSV ou NDJSON
+    @FXML
+    private void handleImport() {
+        ImportDialog.show("Import Employees", importButton, tasks,
+                (file, listener) -> new ImportService().importEmployees(file, listener),
+                this::loadEmployees);
+    }
+
+    // Exporte tous les employés (CSV ou NDJSON, gzip en option)
+    @FXML
+    private void handleExport() {
+        ExportDialog.show("Export Employees", "employees", exportButton, tasks,
+                (file, listener) -> new ExportService().exportEmployees(file, listener));
+    }
+
     // Ouvre le formulaire pour modifier un employé sélectionné
     @FXML
     private void handleEdit() {
@@ -124,8 +419,13 @@ public class EmployeeController {
             alert.setHeaderText("Delete Employee");
             alert.setContentText("Are you sure you want to delete " + selected.getName() + "?");
             if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                employeeService.delete(selected.getId());
-                loadEmployees();
+                tasks.run(() -> {
+                    employeeService.delete(selected.getId());
+                    return null;
+                }, done -> {
+                    employeeList.removed(selected);
+                    searchResults.remove(selected);
+                });
             }
         } else {
             showAlert("Please select an employee to delete");
@@ -135,8 +435,7 @@ public class EmployeeController {
     // Navigation vers le dashboard
     @FXML
     private void handleDashboard() {
-        setActiveButton(dashboardBtn);
-        loadScene("/views/dashboard.fxml", "Dashboard");
+        ViewManager.getInstance().show("/views/dashboard.fxml", "Dashboard");
     }
 
     @FXML
@@ -147,15 +446,13 @@ public class EmployeeController {
     // Navigation vers la page des départements
     @FXML
     private void handleDepartments() {
-        setActiveButton(departmentsBtn);
-        loadScene("/views/department.fxml", "Department Management");
+        ViewManager.getInstance().show("/views/department.fxml", "Department Management");
     }
 
     // Navigation vers la page des congés
     @FXML
     private void handleLeaves() {
-        setActiveButton(leavesBtn);
-        loadScene("/views/leave.fxml", "Leave Management");
+        ViewManager.getInstance().show("/views/leave.fxml", "Leave Management");
     }
 
     // Met en évidence le bouton actif dans le menu
@@ -190,23 +487,34 @@ public class EmployeeController {
         }
     }
 
-    // Rafraîchit le tableau après une modification
-    public void refreshTable() {
-        loadEmployees();
+    // Met à jour uniquement la ligne concernée après un ajout ou une modification
+    public void employeeSaved(Employee employee, boolean created) {
+        if (!filter.matches(employee)) {
+            if (!created) {
+                employeeList.removed(employee);
+            }
+        } else if (created) {
+            // Suivie par le flux de changements, la liste reçoit l'insertion par son écho (comptée une seule fois)
+            if (!ChangeStreamService.getInstance().isLive(Employee.class)) {
+                showAdded(employee, 0);
+            }
+        } else if (filter.isSorted()) {
+            // Le champ trié a peut-être changé : sa place n'est plus connue
+            employeeList.refresh();
+        } else {
+            employeeList.updated(employee);
+        }
+        if (isSearching()) {
+            searchDelay.playFromStart();
+        }
     }
 
-    // Charge une nouvelle page/scène
-    private void loadScene(String fxml, String title) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
-            Parent root = loader.load();
-            Scene scene = new Scene(root);
-            scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-            Stage stage = (Stage) addButton.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Un nouvel employé va en fin de liste dans l'ordre de création ; trié, sa place n'est pas connue
+    private void showAdded(Employee employee, long clusterTime) {
+        if (filter.isSorted()) {
+            employeeList.refresh();
+        } else {
+            employeeList.added(employee, clusterTime);
         }
     }
 
@@ -1,9 +1,12 @@
 package controllers;
 
+import app.TaskScope;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import model.Employee;
+import model.NamedItem;
+import services.DuplicateEmailException;
 import services.EmployeeService;
 import services.DepartmentService;
 
@@ -18,7 +21,7 @@ public class EmployeeFormController {
     @FXML
     private TextField positionField;
     @FXML
-    private ComboBox<String> departmentCombo;
+    private ComboBox<NamedItem> departmentCombo;
     @FXML
     private DatePicker hireDatePicker;
     @FXML
@@ -30,6 +33,7 @@ public class EmployeeFormController {
     private EmployeeController employeeController;
     private EmployeeService employeeService;
     private DepartmentService departmentService;
+    private final TaskScope tasks = new TaskScope();
 
     // Initialisation du formulaire au chargement
     @FXML
@@ -48,11 +52,19 @@ public class EmployeeFormController {
             emailField.setText(employee.getEmail());
             positionField.setText(employee.getPosition());
             hireDatePicker.setValue(employee.getHireDate());
-            if (employee.getDepartmentId() != null) {
-                var dept = departmentService.findById(employee.getDepartmentId());
-                if (dept != null) {
-                    departmentCombo.setValue(dept.getId() + " - " + dept.getName());
-                }
+            selectDepartment();
+        }
+    }
+
+    // Sélectionne le département de l'employé une fois la liste chargée
+    private void selectDepartment() {
+        if (employee == null || employee.getDepartmentId() == null) {
+            return;
+        }
+        for (NamedItem item : departmentCombo.getItems()) {
+            if (item.getId().equals(employee.getDepartmentId())) {
+                departmentCombo.setValue(item);
+                return;
             }
         }
     }
@@ -63,9 +75,9 @@ public class EmployeeFormController {
 
     // Charge la liste des départements dans le ComboBox
     private void loadDepartments() {
-        departmentCombo.getItems().clear();
-        departmentService.findAll().forEach(dept -> {
-            departmentCombo.getItems().add(dept.getId() + " - " + dept.getName());
+        tasks.run(departmentService::findSummaries, departments -> {
+            departmentCombo.getItems().setAll(departments);
+            selectDepartment();
         });
     }
 
@@ -92,13 +104,26 @@ public class EmployeeFormController {
         
         // Récupérer l'ID du département sélectionné
         if (departmentCombo.getSelectionModel().getSelectedItem() != null) {
-            String selected = departmentCombo.getSelectionModel().getSelectedItem();
-            employee.setDepartmentId(selected.split(" - ")[0]);
+            employee.setDepartmentId(departmentCombo.getSelectionModel().getSelectedItem().getId());
         }
 
-        employeeService.save(employee);
-        employeeController.refreshTable();
-        closeWindow();
+        Employee toSave = employee;
+        boolean created = employee.getId() == null;
+        saveButton.setDisable(true);
+        tasks.run(() -> {
+            employeeService.save(toSave);
+            return null;
+        }, done -> {
+            employeeController.employeeSaved(toSave, created);
+            closeWindow();
+        }, error -> {
+            saveButton.setDisable(false);
+            if (error instanceof DuplicateEmailException) {
+                showAlert(error.getMessage());
+            } else {
+                TaskScope.showError(error);
+            }
+        });
     }
 
     // Annule et ferme la fenêtre
@@ -108,6 +133,7 @@ public class EmployeeFormController {
     }
 
     private void closeWindow() {
+        tasks.cancel();
         Stage stage = (Stage) saveButton.getScene().getWindow();
         stage.close();
     }
@@ -0,0 +1,65 @@
+package controllers;
+
+import app.TaskScope;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.stage.FileChooser;
+import services.ExportService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Déroulement commun d'un export : choix du fichier, progression sur le bouton, bilan
+class ExportDialog {
+    // Export à lancer en arrière-plan vers le fichier choisi ; retourne le nombre de lignes
+    interface ExportJob {
+        long run(Path file, ExportService.ProgressListener listener) throws IOException;
+    }
+
+    private ExportDialog() {
+    }
+
+    static void show(String title, String baseName, Button button, TaskScope tasks, ExportJob job) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("NDJSON", "*.ndjson"),
+                new FileChooser.ExtensionFilter("NDJSON (gzip)", "*.ndjson.gz"));
+        chooser.setInitialFileName(baseName + ".csv");
+        File file = chooser.showSaveDialog(button.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        String buttonText = button.getText();
+        button.setDisable(true);
+        // Une seule mise à jour du bouton en attente à la fois sur le thread JavaFX
+        AtomicBoolean refreshPending = new AtomicBoolean();
+        ExportService.ProgressListener listener = rows -> {
+            if (refreshPending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    refreshPending.set(false);
+                    button.setText("Exporting... " + rows + " rows");
+                });
+            }
+        };
+        tasks.run(() -> job.run(file.toPath(), listener), rows -> {
+            button.setText(buttonText);
+            button.setDisable(false);
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Export");
+            alert.setHeaderText(null);
+            alert.setContentText(rows + " rows exported to " + file.getName());
+            alert.showAndWait();
+        }, error -> {
+            button.setText(buttonText);
+            button.setDisable(false);
+            TaskScope.showError(error);
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package controllers;
+
+import app.TaskScope;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import services.ImportResult;
+import services.ImportService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Déroulement commun d'un import : choix du fichier, progression sur le bouton, bilan
+class ImportDialog {
+    // Import à lancer en arrière-plan sur le fichier choisi
+    interface ImportJob {
+        ImportResult run(Path file, ImportService.ProgressListener listener) throws IOException;
+    }
+
+    private ImportDialog() {
+    }
+
+    static void show(String title, Button button, TaskScope tasks, ImportJob job, Runnable onImported) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV or NDJSON", "*.csv", "*.ndjson", "*.jsonl", "*.json"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        Window owner = button.getScene().getWindow();
+        File file = chooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+
+        String buttonText = button.getText();
+        button.setDisable(true);
+        // Une seule mise à jour du bouton en attente à la fois sur le thread JavaFX
+        AtomicBoolean refreshPending = new AtomicBoolean();
+        ImportService.ProgressListener listener = (read, imported, failed) -> {
+            if (refreshPending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    refreshPending.set(false);
+                    button.setText("Importing... " + read + " rows");
+                });
+            }
+        };
+        tasks.run(() -> job.run(file.toPath(), listener), result -> {
+            button.setText(buttonText);
+            button.setDisable(false);
+            onImported.run();
+            showResult(result, owner);
+        }, error -> {
+            button.setText(buttonText);
+            button.setDisable(false);
+            TaskScope.showError(error);
+        });
+    }
+
+    // Affiche le bilan et propose d'enregistrer le rapport d'erreurs
+    private static void showResult(ImportResult result, Window owner) {
+        Alert alert = new Alert(result.getRowsFailed() == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+        alert.setTitle("Import");
+        alert.setHeaderText(result.getRowsImported() + " of " + result.getRowsRead() + " rows imported");
+        if (result.getRowsFailed() == 0) {
+            alert.showAndWait();
+            return;
+        }
+        StringBuilder message = new StringBuilder(result.getRowsFailed() + " rows rejected:");
+        result.getErrors().stream().limit(10).forEach(error -> message.append('\n').append(error));
+        alert.setContentText(message.toString());
+        ButtonType saveReport = new ButtonType("Save Report...", ButtonBar.ButtonData.LEFT);
+        alert.getButtonTypes().setAll(saveReport, ButtonType.OK);
+        if (alert.showAndWait().orElse(ButtonType.OK) == saveReport) {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Save Import Report");
+            chooser.setInitialFileName("import-errors.txt");
+            File target = chooser.showSaveDialog(owner);
+            if (target != null) {
+                try {
+                    result.writeReport(target.toPath());
+                } catch (IOException e) {
+                    TaskScope.showError(e);
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package controllers;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import app.TaskScope;
+import app.ViewManager;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -11,11 +11,36 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.LeaveRequest;
+import model.NamedItem;
+import services.BulkResult;
+import services.ChangeEvent;
+import services.ChangeStreamService;
+import services.CountResult;
+import services.DepartmentCache;
+import services.EmployeeService;
+import services.ExportService;
+import services.LeaveOccupancy;
+import services.LeaveQuery;
+import services.LeaveRuleException;
 import services.LeaveService;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class LeaveController implements ViewManager.Refreshable {
+    // Choix de la liste des statuts ; le premier désactive le filtre
+    private static final List<NamedItem> STATUSES = Arrays.asList(
+            new NamedItem(null, "All statuses"),
+            new NamedItem("PENDING", "Pending"),
+            new NamedItem("APPROVED", "Approved"),
+            new NamedItem("REJECTED", "Rejected"));
+    private static final NamedItem ALL_EMPLOYEES = new NamedItem(null, "All employees");
 
-public class LeaveController {
     @FXML
     private TableView<LeaveRequest> leaveTable;
     @FXML
@@ -29,14 +54,26 @@ public class LeaveController {
     @FXML
     private TableColumn<LeaveRequest, String> statusColumn;
     @FXML
+    private ComboBox<NamedItem> statusFilter;
+    @FXML
+    private ComboBox<NamedItem> employeeFilter;
+    @FXML
+    private DatePicker fromPicker;
+    @FXML
+    private DatePicker toPicker;
+    @FXML
     private Button addButton;
     @FXML
+    private Button exportButton;
+    @FXML
     private Button acceptButton;
     @FXML
     private Button refuseButton;
     @FXML
     private Button deleteButton;
     @FXML
+    private Label occupancyLabel;
+    @FXML
     private Button dashboardBtn;
     @FXML
     private Button employeesBtn;
@@ -46,21 +83,104 @@ public class LeaveController {
     private Button leavesBtn;
 
     private LeaveService leaveService;
-    private ObservableList<LeaveRequest> leaveList;
+    private PagedList<LeaveRequest> leaveList;
+    // Filtres actifs, appliqués par la base (lus par les chargements de pages en arrière-plan)
+    private volatile LeaveQuery filter = new LeaveQuery();
+    private boolean updatingFilters;
+    // Tri demandé par l'en-tête de colonne, exécuté par la base (null = ordre de création)
+    private final Map<TableColumn<LeaveRequest, ?>, String> sortFields = new HashMap<>();
+    private String sortField;
+    private boolean sortDescending;
+    private final TaskScope tasks = new TaskScope();
 
     @FXML
     public void initialize() {
         leaveService = new LeaveService();
-        leaveList = FXCollections.observableArrayList();
+        leaveList = new PagedList<>(new PagedList.Loader<>() {
+            @Override
+            public CountResult count() {
+                return leaveService.count(filter);
+            }
+
+            @Override
+            public List<LeaveRequest> loadPage(LeaveRequest from, int skip, int limit) {
+                return leaveService.findPage(filter, from, skip, limit);
+            }
+
+            @Override
+            public String idOf(LeaveRequest leave) {
+                return leave.getId();
+            }
+        }, tasks);
         setupTable();
+        setupFilters();
         loadLeaves();
+        tasks.listen(LeaveRequest.class, this::applyChange);
+    }
+
+    // Écran de nouveau affiché : employés du filtre relus ; la liste n'est rechargée que si le flux
+    // de changements ne la suit pas
+    @Override
+    public void refresh() {
+        loadEmployeeChoices();
+        if (!ChangeStreamService.getInstance().isLive(LeaveRequest.class)) {
+            leaveList.refresh();
+        }
+        showOccupancy(leaveTable.getSelectionModel().getSelectedItem());
+    }
+
+    // Applique une modification reçue du flux de changements (autre client ou écho des nôtres)
+    private void applyChange(ChangeEvent<LeaveRequest> event) {
+        if (event.getType() == ChangeEvent.Type.RELOAD) {
+            // Des modifications ont pu être perdues : tout est relu
+            leaveList.refresh();
+            return;
+        }
+        if (event.getType() == ChangeEvent.Type.DELETE) {
+            leaveList.removed(event.getId(), event.getClusterTime());
+            return;
+        }
+        LeaveRequest changed = event.getDocument();
+        LeaveRequest existing = leaveList.find(event.getId());
+        if (!filter.matches(changed)) {
+            // Ne correspond plus aux filtres (ou jamais) : retirée si elle était affichée
+            if (existing != null) {
+                leaveList.removed(existing);
+            }
+            return;
+        }
+        // Sa place dans le tri a changé : les pages sont relues dans le nouvel ordre
+        boolean moved = existing != null && filter.movesInSort(existing, changed);
+        if (existing != null && Objects.equals(existing.getEmployeeId(), changed.getEmployeeId())) {
+            // Même objet modifié en place : la sélection est conservée
+            existing.setStartDate(changed.getStartDate());
+            existing.setEndDate(changed.getEndDate());
+            existing.setReason(changed.getReason());
+            existing.setStatus(changed.getStatus());
+            if (moved) {
+                leaveList.refresh();
+            } else {
+                leaveList.updated(existing);
+            }
+            return;
+        }
+        tasks.run(() -> leaveService.resolveEmployeeName(changed), leave -> {
+            if (event.getType() == ChangeEvent.Type.INSERT) {
+                showAdded(leave, event.getClusterTime());
+            } else if (moved || existing == null && !filter.isEmpty()) {
+                // Modifiée ailleurs, elle entre peut-être dans les filtres : sa position est inconnue
+                leaveList.refresh();
+            } else {
+                leaveList.updated(leave);
+            }
+        });
     }
 
     private void setupTable() {
         employeeColumn.setCellValueFactory(new PropertyValueFactory<>("employeeName"));
         startDateColumn.setCellValueFactory(cellData -> {
             LeaveRequest leave = cellData.getValue();
-            if (leave.getStartDate() != null) {
+            if (leave != null && leave.getStartDate() != null) {
                 return javafx.beans.binding.Bindings.createStringBinding(
                     () -> leave.getStartDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
                 );
@@ -69,7 +189,7 @@ public class LeaveController {
         });
         endDateColumn.setCellValueFactory(cellData -> {
             LeaveRequest leave = cellData.getValue();
-            if (leave.getEndDate() != null) {
+            if (leave != null && leave.getEndDate() != null) {
                 return javafx.beans.binding.Bindings.createStringBinding(
                     () -> leave.getEndDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
                 );
@@ -78,7 +198,21 @@ public class LeaveController {
         });
         reasonColumn.setCellValueFactory(new PropertyValueFactory<>("reason"));
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
+        // Tri par la base (index par colonne) : un clic sur l'en-tête relit la première page dans le
+        // nouvel ordre ; l'employé (nom résolu après lecture) et le motif ne sont pas triables
+        sortFields.put(startDateColumn, "startDate");
+        sortFields.put(endDateColumn, "endDate");
+        sortFields.put(statusColumn, "status");
+        employeeColumn.setSortable(false);
+        reasonColumn.setSortable(false);
+        leaveTable.setSortPolicy(table -> {
+            applySort();
+            return true;
+        });
         leaveTable.setItems(leaveList);
+        // Sélection multiple pour les traitements groupés (Ctrl/Maj + clic)
+        leaveTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        leaveTable.getSelectionModel().selectedItemProperty().addListener((obs, old, leave) -> showOccupancy(leave));
         
         // Improve table appearance
         leaveTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
@@ -112,9 +246,97 @@ public class LeaveController {
         });
     }
 
+    // Barre de filtres : chaque changement relance le comptage et les pages (filtrés par la base)
+    private void setupFilters() {
+        statusFilter.getItems().setAll(STATUSES);
+        statusFilter.setValue(STATUSES.get(0));
+        employeeFilter.getItems().setAll(ALL_EMPLOYEES);
+        employeeFilter.setValue(ALL_EMPLOYEES);
+        statusFilter.valueProperty().addListener((obs, old, value) -> applyFilters());
+        employeeFilter.valueProperty().addListener((obs, old, value) -> applyFilters());
+        fromPicker.valueProperty().addListener((obs, old, value) -> applyFilters());
+        toPicker.valueProperty().addListener((obs, old, value) -> applyFilters());
+        loadEmployeeChoices();
+    }
+
+    // Employés proposés par le filtre
+    private void loadEmployeeChoices() {
+        tasks.run(() -> new EmployeeService().findSummaries(), employees -> {
+            String selectedId = employeeFilter.getValue() != null ? employeeFilter.getValue().getId() : null;
+            List<NamedItem> items = new ArrayList<>(employees);
+            items.add(0, ALL_EMPLOYEES);
+            updatingFilters = true;
+            employeeFilter.getItems().setAll(items);
+            employeeFilter.setValue(items.stream().filter(item -> Objects.equals(item.getId(), selectedId))
+                    .findFirst().orElse(ALL_EMPLOYEES));
+            updatingFilters = false;
+        });
+    }
+
+    private void applyFilters() {
+        if (updatingFilters) {
+            return;
+        }
+        NamedItem status = statusFilter.getValue();
+        NamedItem employee = employeeFilter.getValue();
+        filter = new LeaveQuery()
+                .status(status != null ? status.getId() : null)
+                .employee(employee != null ? employee.getId() : null)
+                .during(fromPicker.getValue(), toPicker.getValue())
+                .sortBy(sortField, sortDescending);
+        leaveList.refresh();
+    }
+
+    // Seule la première colonne de l'ordre de tri est prise en compte (un index par colonne)
+    private void applySort() {
+        List<TableColumn<LeaveRequest, ?>> order = leaveTable.getSortOrder();
+        TableColumn<LeaveRequest, ?> column = order.isEmpty() ? null : order.get(0);
+        String field = column != null ? sortFields.get(column) : null;
+        boolean descending = field != null && column.getSortType() == TableColumn.SortType.DESCENDING;
+        if (Objects.equals(field, sortField) && descending == sortDescending) {
+            return;
+        }
+        sortField = field;
+        sortDescending = descending;
+        applyFilters();
+    }
+
+    @FXML
+    private void handleClearFilters() {
+        updatingFilters = true;
+        statusFilter.setValue(STATUSES.get(0));
+        employeeFilter.setValue(ALL_EMPLOYEES);
+        fromPicker.setValue(null);
+        toPicker.setValue(null);
+        updatingFilters = false;
+        applyFilters();
+    }
+
+    // Affiche les absences du département de l'employé sur la période de la demande sélectionnée
+    private void showOccupancy(LeaveRequest leave) {
+        occupancyLabel.setText("");
+        if (leave == null || leave.getStartDate() == null || leave.getEndDate() == null) {
+            return;
+        }
+        tasks.run(() -> {
+            LeaveOccupancy occupancy = LeaveOccupancy.getInstance();
+            occupancy.ensureLoaded();
+            DepartmentCache.getInstance().ensureLoaded();
+            return occupancy.peak(leave);
+        }, peak -> {
+            if (leave != leaveTable.getSelectionModel().getSelectedItem() || peak.getDepartmentId() == null) {
+                return;
+            }
+            String department = DepartmentCache.getInstance().getName(peak.getDepartmentId());
+            occupancyLabel.setText((department != null ? department : "Department") + ": up to "
+                    + peak.getApproved() + " other(s) off on the same days, "
+                    + peak.getWithPending() + " with pending requests"
+                    + (peak.getLimit() != null ? " (limit " + peak.getLimit() + ")" : ""));
+        });
+    }
+
     private void loadLeaves() {
-        leaveList.clear();
-        leaveList.addAll(leaveService.findAll());
+        leaveList.refresh();
     }
 
     @FXML
@@ -138,12 +360,20 @@ public class LeaveController {
         }
     }
 
+    // Exporte l'historique complet des congés (CSV ou NDJSON, gzip en option)
+    @FXML
+    private void handleExport() {
+        ExportDialog.show("Export Leave Requests", "leave-requests", exportButton, tasks,
+                (file, listener) -> new ExportService().exportLeaves(file, listener));
+    }
+
     @FXML
     private void handleAccept() {
-        LeaveRequest selected = leaveTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            leaveService.updateStatus(selected.getId(), "APPROVED");
-            loadLeaves();
+        List<LeaveRequest> selected = getSelectedLeaves();
+        if (selected.size() == 1) {
+            changeStatus(selected.get(0), "APPROVED");
+        } else if (!selected.isEmpty()) {
+            changeStatuses(selected, "APPROVED");
         } else {
             showAlert("Please select a leave request to accept");
         }
@@ -151,26 +381,111 @@ public class LeaveController {
 
     @FXML
     private void handleRefuse() {
-        LeaveRequest selected = leaveTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            leaveService.updateStatus(selected.getId(), "REJECTED");
-            loadLeaves();
+        List<LeaveRequest> selected = getSelectedLeaves();
+        if (selected.size() == 1) {
+            changeStatus(selected.get(0), "REJECTED");
+        } else if (!selected.isEmpty()) {
+            changeStatuses(selected, "REJECTED");
         } else {
             showAlert("Please select a leave request to refuse");
         }
     }
 
+    // Demandes sélectionnées (les lignes pas encore chargées sont ignorées)
+    private List<LeaveRequest> getSelectedLeaves() {
+        List<LeaveRequest> selected = new ArrayList<>();
+        for (LeaveRequest leave : leaveTable.getSelectionModel().getSelectedItems()) {
+            if (leave != null) {
+                selected.add(leave);
+            }
+        }
+        return selected;
+    }
+
+    private static List<String> idsOf(List<LeaveRequest> leaves) {
+        List<String> ids = new ArrayList<>(leaves.size());
+        leaves.forEach(leave -> ids.add(leave.getId()));
+        return ids;
+    }
+
+    // Change le statut de plusieurs demandes en attente en une seule écriture
+    private void changeStatuses(List<LeaveRequest> leaves, String status) {
+        tasks.run(() -> leaveService.updateStatuses(idsOf(leaves), status), result -> {
+            for (LeaveRequest leave : leaves) {
+                BulkResult.Outcome outcome = result.getOutcome(leave.getId());
+                if (outcome == BulkResult.Outcome.DONE) {
+                    showStatusChanged(leave, status);
+                } else if (outcome == BulkResult.Outcome.NOT_FOUND) {
+                    leaveList.removed(leave);
+                }
+            }
+            showBulkSummary(result, status.equals("APPROVED") ? "approved" : "refused");
+        });
+    }
+
+    // Résume une opération groupée si certaines demandes ont été ignorées
+    private void showBulkSummary(BulkResult result, String action) {
+        long notPending = result.count(BulkResult.Outcome.NOT_PENDING);
+        long notFound = result.count(BulkResult.Outcome.NOT_FOUND);
+        long overlap = result.count(BulkResult.Outcome.OVERLAP);
+        long overCapacity = result.count(BulkResult.Outcome.OVER_CAPACITY);
+        if (notPending + notFound + overlap + overCapacity == 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        message.append(result.count(BulkResult.Outcome.DONE)).append(" leave request(s) ").append(action).append(".");
+        if (notPending > 0) {
+            message.append("\n").append(notPending).append(" skipped: no longer pending.");
+        }
+        if (notFound > 0) {
+            message.append("\n").append(notFound).append(" skipped: already deleted.");
+        }
+        if (overlap > 0) {
+            message.append("\n").append(overlap).append(" skipped: overlaps another approved leave of the same employee.");
+        }
+        if (overCapacity > 0) {
+            message.append("\n").append(overCapacity).append(" skipped: the department already has its maximum number of people off.");
+        }
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Bulk Update");
+        alert.setHeaderText(null);
+        alert.setContentText(message.toString());
+        alert.showAndWait();
+    }
+
+    // Change le statut (une seule écriture) puis met à jour la ligne en place
+    private void changeStatus(LeaveRequest leave, String status) {
+        tasks.run(() -> leaveService.updateStatus(leave.getId(), status), updated -> {
+            if (updated == null) {
+                leaveList.removed(leave);
+                return;
+            }
+            showStatusChanged(leave, updated.getStatus());
+            showOccupancy(leaveTable.getSelectionModel().getSelectedItem());
+        }, error -> {
+            if (error instanceof LeaveRuleException) {
+                showAlert(error.getMessage());
+            } else {
+                TaskScope.showError(error);
+            }
+        });
+    }
+
     @FXML
     private void handleDelete() {
-        LeaveRequest selected = leaveTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
+        List<LeaveRequest> selected = getSelectedLeaves();
+        if (!selected.isEmpty()) {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Confirm Delete");
-            alert.setHeaderText("Delete Leave Request");
-            alert.setContentText("Are you sure you want to delete this leave request?");
+            alert.setHeaderText(selected.size() == 1 ? "Delete Leave Request" : "Delete Leave Requests");
+            alert.setContentText(selected.size() == 1
+                    ? "Are you sure you want to delete this leave request?"
+                    : "Are you sure you want to delete these " + selected.size() + " leave requests?");
             if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                leaveService.delete(selected.getId());
-                loadLeaves();
+                tasks.run(() -> leaveService.deleteAll(idsOf(selected)), result -> {
+                    leaveTable.getSelectionModel().clearSelection();
+                    selected.forEach(leaveList::removed);
+                });
             }
         } else {
             showAlert("Please select a leave request to delete");
@@ -179,20 +494,17 @@ public class LeaveController {
 
     @FXML
     private void handleDashboard() {
-        setActiveButton(dashboardBtn);
-        loadScene("/views/dashboard.fxml", "Dashboard");
+        ViewManager.getInstance().show("/views/dashboard.fxml", "Dashboard");
     }
 
     @FXML
     private void handleEmployees() {
-        setActiveButton(employeesBtn);
-        loadScene("/views/employee.fxml", "Employee Management");
+        ViewManager.getInstance().show("/views/employee.fxml", "Employee Management");
     }
 
     @FXML
     private void handleDepartments() {
-        setActiveButton(departmentsBtn);
-        loadScene("/views/department.fxml", "Department Management");
+        ViewManager.getInstance().show("/views/department.fxml", "Department Management");
     }
 
     @FXML
@@ -209,21 +521,36 @@ public class LeaveController {
         button.getStyleClass().add("sidebar-button-active");
     }
 
-    public void refreshTable() {
-        loadLeaves();
+    // Ajoute la nouvelle demande au tableau sans tout recharger
+    // (suivie par le flux de changements, la liste reçoit l'insertion par son écho, comptée une seule fois)
+    public void leaveCreated(LeaveRequest leave) {
+        if (filter.matches(leave) && !ChangeStreamService.getInstance().isLive(LeaveRequest.class)) {
+            showAdded(leave, 0);
+        }
     }
 
-    private void loadScene(String fxml, String title) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
-            Parent root = loader.load();
-            Scene scene = new Scene(root);
-            scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-            Stage stage = (Stage) addButton.getScene().getWindow();
-            stage.setScene(scene);
-            stage.setTitle(title);
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Une nouvelle demande va en fin de liste dans l'ordre de création ; triée, sa place n'est pas connue
+    private void showAdded(LeaveRequest leave, long clusterTime) {
+        if (filter.isSorted()) {
+            leaveList.refresh();
+        } else {
+            leaveList.added(leave, clusterTime);
+        }
+    }
+
+    // Applique le nouveau statut à une demande affichée : redessinée en place, relue si elle change
+    // de place dans le tri, retirée si elle ne correspond plus aux filtres
+    private void showStatusChanged(LeaveRequest leave, String status) {
+        LeaveRequest after = new LeaveRequest(leave.getId(), leave.getEmployeeId(), leave.getEmployeeName(),
+                leave.getStartDate(), leave.getEndDate(), leave.getReason(), status);
+        boolean moved = filter.movesInSort(leave, after);
+        leave.setStatus(status);
+        if (!filter.matches(leave)) {
+            leaveList.removed(leave);
+        } else if (moved) {
+            leaveList.refresh();
+        } else {
+            leaveList.updated(leave);
         }
     }
 
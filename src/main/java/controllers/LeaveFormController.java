@@ -1,9 +1,12 @@
 package controllers;
 
+import app.TaskScope;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import model.LeaveRequest;
+import model.NamedItem;
+import services.LeaveRuleException;
 import services.LeaveService;
 import services.EmployeeService;
 
@@ -11,7 +14,7 @@ import java.time.LocalDate;
 
 public class LeaveFormController {
     @FXML
-    private ComboBox<String> employeeCombo;
+    private ComboBox<NamedItem> employeeCombo;
     @FXML
     private DatePicker startDatePicker;
     @FXML
@@ -24,6 +27,7 @@ public class LeaveFormController {
     private LeaveController leaveController;
     private LeaveService leaveService;
     private EmployeeService employeeService;
+    private final TaskScope tasks = new TaskScope();
 
     @FXML
     public void initialize() {
@@ -39,10 +43,7 @@ public class LeaveFormController {
     }
 
     private void loadEmployees() {
-        employeeCombo.getItems().clear();
-        employeeService.findAll().forEach(emp -> {
-            employeeCombo.getItems().add(emp.getId() + " - " + emp.getName());
-        });
+        tasks.run(employeeService::findSummaries, employees -> employeeCombo.getItems().setAll(employees));
     }
 
     @FXML
@@ -59,19 +60,31 @@ public class LeaveFormController {
             return;
         }
 
-        String selected = employeeCombo.getSelectionModel().getSelectedItem();
-        String employeeId = selected.split(" - ")[0];
+        NamedItem selected = employeeCombo.getSelectionModel().getSelectedItem();
 
         LeaveRequest leave = new LeaveRequest();
-        leave.setEmployeeId(employeeId);
+        leave.setEmployeeId(selected.getId());
+        leave.setEmployeeName(selected.getName());
         leave.setStartDate(startDatePicker.getValue());
         leave.setEndDate(endDatePicker.getValue());
         leave.setReason(reasonArea.getText().trim());
         leave.setStatus("PENDING");
 
-        leaveService.save(leave);
-        leaveController.refreshTable();
-        closeWindow();
+        saveButton.setDisable(true);
+        tasks.run(() -> {
+            leaveService.save(leave);
+            return null;
+        }, done -> {
+            leaveController.leaveCreated(leave);
+            closeWindow();
+        }, error -> {
+            saveButton.setDisable(false);
+            if (error instanceof LeaveRuleException) {
+                showAlert(error.getMessage());
+            } else {
+                TaskScope.showError(error);
+            }
+        });
     }
 
     @FXML
@@ -80,6 +93,7 @@ public class LeaveFormController {
     }
 
     private void closeWindow() {
+        tasks.cancel();
         Stage stage = (Stage) saveButton.getScene().getWindow();
         stage.close();
     }
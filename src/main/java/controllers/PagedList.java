@@ -0,0 +1,288 @@
+package controllers;
+
+import app.TaskScope;
+import javafx.collections.ObservableListBase;
+import services.CountResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Liste paginée pour TableView : seules les pages proches de la zone visible
+// sont chargées (en arrière-plan), les pages éloignées sont évincées (LRU).
+// Les lignes pas encore chargées valent null et s'affichent vides.
+public class PagedList<T> extends ObservableListBase<T> {
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 10;
+
+    // Source des données : pagination par clé (keyset) côté service
+    public interface Loader<T> {
+        // Nombre total d'éléments et instant du comptage
+        CountResult count();
+
+        // Charge "limit" éléments à partir de "from" inclus (null = début), après en avoir sauté "skip"
+        List<T> loadPage(T from, int skip, int limit);
+
+        // Identifiant d'un élément
+        String idOf(T item);
+    }
+
+    private final Loader<T> loader;
+    private final TaskScope tasks;
+    // Pages chargées, dans l'ordre d'accès (la plus ancienne est évincée en premier)
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    // Premier élément connu de chaque page : point de départ des requêtes keyset
+    private final TreeMap<Integer, T> anchors = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    // Identifiants retirés localement depuis le dernier rechargement
+    // (évite de les appliquer deux fois quand le flux de changements les renvoie)
+    private final Set<String> removedIds = new HashSet<>();
+    // Instant du dernier comptage (0 si inconnu) : un ajout ou une suppression reçus du flux
+    // avec un instant antérieur ou égal y sont déjà pris en compte
+    private long countedUntil;
+    // Ajouts et suppressions reçus pendant un comptage, appliqués une fois le nouveau nombre connu
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+    private boolean counting;
+    private int size;
+    private int generation;
+
+    public PagedList(Loader<T> loader, TaskScope tasks) {
+        this.loader = loader;
+        this.tasks = tasks;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int page = index / PAGE_SIZE;
+        List<T> items = pages.get(page);
+        if (items == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % PAGE_SIZE;
+        if (offset >= items.size()) {
+            // Page raccourcie par une suppression : on la recharge
+            requestPage(page);
+            return null;
+        }
+        return items.get(offset);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Recharge le nombre d'éléments et vide les pages (après une modification)
+    public void refresh() {
+        int expected = ++generation;
+        counting = true;
+        tasks.run(loader::count, result -> {
+            if (expected != generation) {
+                return;
+            }
+            pages.clear();
+            anchors.clear();
+            loading.clear();
+            removedIds.clear();
+            countedUntil = result.getClusterTime();
+            int oldSize = size;
+            size = (int) Math.min(Integer.MAX_VALUE, result.getCount());
+            beginChange();
+            if (oldSize > 0) {
+                nextRemove(0, Collections.nCopies(oldSize, (T) null));
+            }
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            endChange();
+            applyPendingChanges();
+        }, error -> {
+            if (expected == generation) {
+                applyPendingChanges();
+            }
+            TaskScope.showError(error);
+        });
+    }
+
+    // Fin du comptage : les modifications reçues entre-temps sont appliquées au nouveau nombre
+    private void applyPendingChanges() {
+        counting = false;
+        List<Runnable> changes = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        changes.forEach(Runnable::run);
+    }
+
+    // Signale qu'un élément affiché a été modifié : seule sa ligne est redessinée
+    public void updated(T item) {
+        int index = locate(loader.idOf(item));
+        if (index < 0) {
+            return;
+        }
+        pages.get(index / PAGE_SIZE).set(index % PAGE_SIZE, item);
+        beginChange();
+        nextUpdate(index);
+        endChange();
+    }
+
+    // Retourne l'élément chargé ayant cet identifiant, null s'il n'est pas en mémoire
+    public T find(String id) {
+        int index = locate(id);
+        return index >= 0 ? pages.get(index / PAGE_SIZE).get(index % PAGE_SIZE) : null;
+    }
+
+    // Ajoute un nouvel élément en fin de liste (les nouveaux _id sont les plus grands)
+    // "clusterTime" : instant de l'insertion reçu du flux de changements, 0 pour un ajout local
+    // (à ne faire que si le flux ne suit pas la collection : sinon son écho serait compté deux fois)
+    public void added(T item, long clusterTime) {
+        if (counting) {
+            pendingChanges.add(() -> added(item, clusterTime));
+            return;
+        }
+        String id = loader.idOf(item);
+        if (removedIds.contains(id)) {
+            return;
+        }
+        if (locate(id) >= 0) {
+            updated(item);
+            return;
+        }
+        if (clusterTime != 0 && clusterTime <= countedUntil) {
+            // Déjà compté par le dernier rechargement : sa page le contiendra
+            return;
+        }
+        int index = size;
+        size++;
+        List<T> last = pages.get(index / PAGE_SIZE);
+        if (last != null && last.size() == index % PAGE_SIZE) {
+            last.add(item);
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    // Retire un élément : les pages chargées suivantes sont décalées d'un rang
+    public void removed(T item) {
+        removed(loader.idOf(item), 0);
+    }
+
+    // Retire l'élément ayant cet identifiant ; "clusterTime" : instant de la suppression reçu du flux
+    // de changements, 0 pour une suppression locale
+    public void removed(String id, long clusterTime) {
+        if (counting) {
+            pendingChanges.add(() -> removed(id, clusterTime));
+            return;
+        }
+        if (!removedIds.add(id)) {
+            return;
+        }
+        int index = locate(id);
+        if (index < 0) {
+            // Élément hors des pages chargées : sa position est inconnue, sauf si le dernier comptage
+            // ne le contenait déjà plus
+            if (clusterTime == 0 || clusterTime > countedUntil) {
+                refresh();
+            }
+            return;
+        }
+        int page = index / PAGE_SIZE;
+        T removedItem = pages.get(page).remove(index % PAGE_SIZE);
+        size--;
+        // Les chargements en cours portent sur les anciennes positions
+        generation++;
+        loading.clear();
+        // Décale les pages chargées contiguës ; au-delà, les positions ne sont plus connues
+        while (pages.containsKey(page + 1)) {
+            List<T> next = pages.get(page + 1);
+            if (!next.isEmpty()) {
+                pages.get(page).add(next.remove(0));
+            }
+            page++;
+            if (!next.isEmpty()) {
+                anchors.put(page, next.get(0));
+            }
+        }
+        int lastShifted = page;
+        anchors.tailMap(lastShifted, false).clear();
+        pages.keySet().removeIf(key -> key > lastShifted);
+        List<T> first = pages.get(index / PAGE_SIZE);
+        if (index % PAGE_SIZE == 0 && !first.isEmpty()) {
+            anchors.put(index / PAGE_SIZE, first.get(0));
+        }
+        beginChange();
+        nextRemove(index, removedItem);
+        endChange();
+    }
+
+    // Position d'un élément parmi les pages chargées, -1 s'il n'y est pas
+    private int locate(String id) {
+        if (id == null) {
+            return -1;
+        }
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> items = entry.getValue();
+            for (int i = 0; i < items.size(); i++) {
+                if (id.equals(loader.idOf(items.get(i)))) {
+                    return entry.getKey() * PAGE_SIZE + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Demande le chargement d'une page, à partir de l'ancre connue la plus proche
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        Map.Entry<Integer, T> anchor = anchors.floorEntry(page);
+        T from = anchor != null ? anchor.getValue() : null;
+        int skip = (page - (anchor != null ? anchor.getKey() : 0)) * PAGE_SIZE;
+        int expected = generation;
+        // Un élément de plus pour connaître l'ancre de la page suivante
+        tasks.run(() -> loader.loadPage(from, skip, PAGE_SIZE + 1), items -> {
+            if (expected != generation) {
+                return;
+            }
+            loading.remove(page);
+            if (items.size() > PAGE_SIZE) {
+                anchors.put(page + 1, items.get(PAGE_SIZE));
+                items = new ArrayList<>(items.subList(0, PAGE_SIZE));
+            }
+            if (!items.isEmpty()) {
+                anchors.put(page, items.get(0));
+            }
+            pages.put(page, items);
+            int start = page * PAGE_SIZE;
+            int end = Math.min(size, start + PAGE_SIZE);
+            beginChange();
+            for (int i = start; i < Math.min(end, start + items.size()); i++) {
+                nextUpdate(i);
+            }
+            // Page incomplète : la fin des données est atteinte, le comptage était surestimé
+            if (items.size() < PAGE_SIZE && start + items.size() < size) {
+                int oldSize = size;
+                size = start + items.size();
+                nextRemove(size, Collections.nCopies(oldSize - size, (T) null));
+            }
+            endChange();
+        }, error -> {
+            loading.remove(page);
+            TaskScope.showError(error);
+        });
+    }
+}
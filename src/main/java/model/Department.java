@@ -5,6 +5,8 @@ public class Department {
     private String id;
     private String name;
     private String description;
+    // Nombre maximal de personnes absentes le même jour (null = pas de limite)
+    private Integer maxConcurrentAbsences;
 
     // Constructeur par défaut
     public Department() {
@@ -40,5 +42,12 @@ public class Department {
     public void setDescription(String description) {
         this.description = description;
     }
-}
 
+    public Integer getMaxConcurrentAbsences() {
+        return maxConcurrentAbsences;
+    }
+
+    public void setMaxConcurrentAbsences(Integer maxConcurrentAbsences) {
+        this.maxConcurrentAbsences = maxConcurrentAbsences;
+    }
+}
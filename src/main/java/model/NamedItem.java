@@ -0,0 +1,26 @@
+package model;
+
+// Résumé léger (id + nom) pour les listes déroulantes et les recherches
+public class NamedItem {
+    private final String id;
+    private final String name;
+
+    public NamedItem(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Texte affiché dans les ComboBox
+    @Override
+    public String toString() {
+        return name != null ? name : "";
+    }
+}
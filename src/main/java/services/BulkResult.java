@@ -0,0 +1,34 @@
+package services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Résultat d'une opération groupée : le sort de chaque élément, par identifiant
+public class BulkResult {
+    public enum Outcome {
+        DONE,          // modifié ou supprimé
+        NOT_PENDING,   // ignoré : la demande n'était plus en attente
+        NOT_FOUND,     // ignoré : la demande n'existe plus
+        OVERLAP,       // ignoré : chevauche un congé déjà approuvé du même employé
+        OVER_CAPACITY  // ignoré : le département a déjà atteint sa limite d'absences ces jours-là
+    }
+
+    private final Map<String, Outcome> outcomes = new LinkedHashMap<>();
+
+    void put(String id, Outcome outcome) {
+        outcomes.put(id, outcome);
+    }
+
+    public Map<String, Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public Outcome getOutcome(String id) {
+        return outcomes.get(id);
+    }
+
+    // Nombre d'éléments ayant ce résultat
+    public long count(Outcome outcome) {
+        return outcomes.values().stream().filter(o -> o == outcome).count();
+    }
+}
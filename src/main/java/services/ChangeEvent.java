@@ -0,0 +1,39 @@
+package services;
+
+// Modification d'un document reçue par le flux de changements MongoDB
+public class ChangeEvent<T> {
+    // RELOAD : des modifications ont pu être perdues (historique du flux dépassé, collection supprimée),
+    // tout ce qui a été lu doit être relu
+    public enum Type { INSERT, UPDATE, DELETE, RELOAD }
+
+    private final Type type;
+    private final String id;
+    private final T document;
+    private final long clusterTime;
+
+    public ChangeEvent(Type type, String id, T document, long clusterTime) {
+        this.type = type;
+        this.id = id;
+        this.document = document;
+        this.clusterTime = clusterTime;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // Identifiant du document, null pour RELOAD
+    public String getId() {
+        return id;
+    }
+
+    // Document complet après modification, null pour une suppression
+    public T getDocument() {
+        return document;
+    }
+
+    // Instant de la modification (comparable à CountResult.getClusterTime), 0 pour RELOAD
+    public long getClusterTime() {
+        return clusterTime;
+    }
+}
@@ -0,0 +1,192 @@
+package services;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Diffuse les modifications faites par tous les clients (flux de changements MongoDB)
+// Nécessite un replica set, même à un seul nœud (mongod --replSet rs0 puis rs.initiate())
+public class ChangeStreamService {
+    // Code d'erreur renvoyé par un mongod autonome (sans replica set)
+    private static final int NOT_A_REPLICA_SET = 40573;
+    // Codes des erreurs après lesquelles le flux ne peut plus reprendre à son jeton : historique de l'oplog
+    // dépassé (ChangeStreamHistoryLost, ChangeStreamFatalError sur les anciens serveurs) ou jeton invalide
+    private static final Set<Integer> HISTORY_LOST = Set.of(286, 280, 260);
+    private static final long RETRY_DELAY_MS = 2000;
+
+    private static ChangeStreamService instance;
+    private final Map<Class<?>, Watcher<?>> watchers = new HashMap<>();
+
+    private ChangeStreamService() {
+    }
+
+    // Retourne l'instance unique du service (Singleton)
+    public static synchronized ChangeStreamService getInstance() {
+        if (instance == null) {
+            instance = new ChangeStreamService();
+        }
+        return instance;
+    }
+
+    // Abonne un écouteur aux modifications d'une collection du modèle ; retourne le désabonnement
+    // L'écouteur est appelé sur le thread du flux, pas sur le thread JavaFX
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Runnable subscribe(Class<T> type, Consumer<ChangeEvent<T>> listener) {
+        // Stockage embarqué : un seul client, rien à suivre
+        if (Repositories.isEmbedded()) {
+            return () -> { };
+        }
+        Watcher<T> watcher = (Watcher<T>) watchers.computeIfAbsent(type, this::startWatcher);
+        watcher.listeners.add(listener);
+        return () -> watcher.listeners.remove(listener);
+    }
+
+    // Vrai si les modifications de la collection sont suivies en direct : faux en stockage embarqué,
+    // sans abonné, tant que le flux n'est pas ouvert (ou pendant sa reprise), ou si le serveur n'est pas un replica set
+    public synchronized boolean isLive(Class<?> type) {
+        if (Repositories.isEmbedded()) {
+            return false;
+        }
+        Watcher<?> watcher = watchers.get(type);
+        return watcher != null && watcher.live;
+    }
+
+    // Arrête tous les flux (à l'arrêt de l'application)
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.watchers.values().forEach(watcher -> watcher.running = false);
+            instance = null;
+        }
+    }
+
+    private <T> Watcher<T> startWatcher(Class<T> type) {
+        Watcher<T> watcher = new Watcher<>(
+                MongoService.getInstance().getDatabase().getCollection(Repositories.collectionName(type), type));
+        Thread thread = new Thread(watcher, "change-stream-" + type.getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    // Suit le flux d'une collection et le reprend après une erreur réseau
+    private static class Watcher<T> implements Runnable {
+        private final MongoCollection<T> collection;
+        private final List<Consumer<ChangeEvent<T>>> listeners = new CopyOnWriteArrayList<>();
+        private volatile boolean running = true;
+        // Vrai seulement quand un curseur est ouvert : tant que le flux n'est pas établi (serveur autonome,
+        // erreur réseau), les écrans ajoutent eux-mêmes leurs nouvelles lignes
+        private volatile boolean live;
+        private BsonDocument resumeToken;
+
+        Watcher(MongoCollection<T> collection) {
+            this.collection = collection;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try (MongoChangeStreamCursor<ChangeStreamDocument<T>> cursor = open()) {
+                    live = true;
+                    while (running) {
+                        ChangeStreamDocument<T> change = cursor.tryNext();
+                        if (change == null) {
+                            continue;
+                        }
+                        resumeToken = change.getResumeToken();
+                        ChangeEvent<T> event = toEvent(change);
+                        if (event == null) {
+                            // Collection supprimée ou flux invalidé : on repart de zéro et les abonnés relisent tout
+                            resumeToken = null;
+                            publish(new ChangeEvent<>(ChangeEvent.Type.RELOAD, null, null, 0));
+                            break;
+                        }
+                        publish(event);
+                    }
+                } catch (MongoException e) {
+                    live = false;
+                    if (e.getCode() == NOT_A_REPLICA_SET) {
+                        System.err.println("Live refresh disabled for " + collection.getNamespace()
+                                + ": change streams need a replica set");
+                        return;
+                    }
+                    if (resumeToken != null && HISTORY_LOST.contains(e.getCode())) {
+                        // Des modifications sont perdues : nouveau flux à partir de maintenant, les abonnés relisent tout
+                        System.err.println("Change stream history lost for " + collection.getNamespace()
+                                + ", restarting: " + e.getMessage());
+                        resumeToken = null;
+                        publish(new ChangeEvent<>(ChangeEvent.Type.RELOAD, null, null, 0));
+                        continue;
+                    }
+                    pause();
+                }
+            }
+        }
+
+        private void publish(ChangeEvent<T> event) {
+            for (Consumer<ChangeEvent<T>> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private MongoChangeStreamCursor<ChangeStreamDocument<T>> open() {
+            var stream = collection.watch()
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            return stream.cursor();
+        }
+
+        private ChangeEvent<T> toEvent(ChangeStreamDocument<T> change) {
+            String id = toId(change.getDocumentKey() != null ? change.getDocumentKey().get("_id") : null);
+            long time = change.getClusterTime() != null ? change.getClusterTime().getValue() : 0;
+            switch (change.getOperationType()) {
+                case INSERT:
+                    return new ChangeEvent<>(ChangeEvent.Type.INSERT, id, change.getFullDocument(), time);
+                case UPDATE:
+                case REPLACE:
+                    // Document déjà supprimé au moment de la lecture : traité comme une suppression
+                    return change.getFullDocument() != null
+                            ? new ChangeEvent<>(ChangeEvent.Type.UPDATE, id, change.getFullDocument(), time)
+                            : new ChangeEvent<>(ChangeEvent.Type.DELETE, id, null, time);
+                case DELETE:
+                    return new ChangeEvent<>(ChangeEvent.Type.DELETE, id, null, time);
+                default:
+                    return null;
+            }
+        }
+
+        private static String toId(BsonValue value) {
+            if (value == null) {
+                return null;
+            }
+            return value.isObjectId() ? value.asObjectId().getValue().toHexString() : value.asString().getValue();
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(RETRY_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
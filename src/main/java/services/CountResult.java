@@ -0,0 +1,22 @@
+package services;
+
+// Résultat d'un comptage : le nombre et l'instant de lecture (horloge des flux de changements)
+// Une modification reçue du flux avec un instant antérieur ou égal est déjà comptée
+public class CountResult {
+    private final long count;
+    private final long clusterTime;
+
+    public CountResult(long count, long clusterTime) {
+        this.count = count;
+        this.clusterTime = clusterTime;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // 0 si l'instant n'est pas connu (stockage embarqué, serveur sans replica set)
+    public long getClusterTime() {
+        return clusterTime;
+    }
+}
@@ -0,0 +1,123 @@
+package services;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Conditions de recherche combinées par "et", et ordre de tri facultatif, indépendants du stockage :
+// MongoRepository les traduit en filtre MongoDB, LogRepository les évalue champ par champ
+public class Criteria {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    enum Operator {
+        EQ,  // champ égal à la valeur (chaîne)
+        IN,  // champ égal à l'une des valeurs
+        GTE, // date du champ postérieure ou égale
+        LTE  // date du champ antérieure ou égale
+    }
+
+    // Une condition sur un champ
+    static final class Condition {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+
+        Condition(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        String getField() {
+            return field;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private String sortField;
+    private boolean descending;
+    private boolean ignoreCase;
+
+    // Le champ vaut exactement "value"
+    public Criteria eq(String field, String value) {
+        conditions.add(new Condition(field, Operator.EQ, value));
+        return this;
+    }
+
+    // Le champ vaut l'une des valeurs
+    public Criteria in(String field, Collection<String> values) {
+        conditions.add(new Condition(field, Operator.IN, new HashSet<>(values)));
+        return this;
+    }
+
+    // La date du champ est le jour donné ou après
+    public Criteria onOrAfter(String field, LocalDate date) {
+        conditions.add(new Condition(field, Operator.GTE, date));
+        return this;
+    }
+
+    // La date du champ est le jour donné ou avant
+    public Criteria onOrBefore(String field, LocalDate date) {
+        conditions.add(new Condition(field, Operator.LTE, date));
+        return this;
+    }
+
+    // Trie par ce champ (puis par identifiant) ; "ignoreCase" compare les textes sans tenir
+    // compte de la casse ni des accents (collation côté MongoDB)
+    public Criteria sortBy(String field, boolean descending, boolean ignoreCase) {
+        this.sortField = field;
+        this.descending = descending;
+        this.ignoreCase = ignoreCase;
+        return this;
+    }
+
+    // Vrai s'il n'y a aucune condition (tous les éléments)
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    // Champ de tri, null = ordre des identifiants
+    String getSortField() {
+        return sortField;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    // Clé de comparaison d'un texte sans la casse, hors MongoDB (proche de MongoRepository.CASE_INSENSITIVE) :
+    // minuscules sans accents, suivies (si elles diffèrent) des minuscules accentuées ; "\0" étant le
+    // plus petit caractère, la partie sans accents décide d'abord de l'ordre
+    static String foldCase(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 128) {
+                String base = MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+                return base.equals(lower) ? lower : base + '\0' + lower;
+            }
+        }
+        return lower;
+    }
+}
@@ -0,0 +1,122 @@
+package services;
+
+import model.Department;
+import model.NamedItem;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Dictionnaire partagé id -> nom des départements (pattern Singleton)
+// Chargé une seule fois, puis tenu à jour par DepartmentService.save/delete
+// et par le flux de changements (modifications des autres clients)
+public class DepartmentCache {
+    private static DepartmentCache instance;
+    // Dictionnaire non modifiable, remplacé d'un bloc à chaque écriture : le thread JavaFX ne voit
+    // jamais de dictionnaire vide ou à moitié rechargé (quelques dizaines de départements, copie peu coûteuse)
+    private volatile Map<String, String> names = Collections.emptyMap();
+    // Protège les écritures ; écritures reçues pendant un rechargement (id -> nom, null = suppression),
+    // rejouées sur le dictionnaire relu ; null hors rechargement
+    private final Object writeLock = new Object();
+    private Map<String, String> pendingWrites;
+    private volatile boolean loaded;
+    private boolean listening;
+
+    private DepartmentCache() {
+    }
+
+    // Retourne l'instance unique du cache (Singleton)
+    public static synchronized DepartmentCache getInstance() {
+        if (instance == null) {
+            instance = new DepartmentCache();
+        }
+        return instance;
+    }
+
+    // Charge le dictionnaire depuis MongoDB s'il ne l'a pas encore été
+    public void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    // Recharge tout le dictionnaire (une seule requête avec projection)
+    public synchronized void reload() {
+        synchronized (writeLock) {
+            pendingWrites = new LinkedHashMap<>();
+        }
+        Map<String, String> fresh = new HashMap<>();
+        boolean read = false;
+        try {
+            for (NamedItem dept : new DepartmentService().findSummaries()) {
+                fresh.put(dept.getId(), dept.getName() != null ? dept.getName() : "");
+            }
+            read = true;
+        } finally {
+            synchronized (writeLock) {
+                if (read) {
+                    pendingWrites.forEach((id, name) -> {
+                        if (name != null) {
+                            fresh.put(id, name);
+                        } else {
+                            fresh.remove(id);
+                        }
+                    });
+                    names = Collections.unmodifiableMap(fresh);
+                    loaded = true;
+                }
+                pendingWrites = null;
+            }
+        }
+        // Suit les modifications faites par les autres clients
+        if (!listening) {
+            listening = true;
+            ChangeStreamService.getInstance().subscribe(Department.class, event -> {
+                if (event.getType() == ChangeEvent.Type.RELOAD) {
+                    invalidate();
+                } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                    remove(event.getId());
+                } else {
+                    put(event.getId(), event.getDocument().getName());
+                }
+            });
+        }
+    }
+
+    // Invalide le cache : il sera rechargé au prochain ensureLoaded()
+    public void invalidate() {
+        loaded = false;
+    }
+
+    // Retourne le nom du département, sans jamais interroger la base
+    public String getName(String id) {
+        return id != null ? names.get(id) : null;
+    }
+
+    // Met à jour une entrée après une sauvegarde
+    public void put(String id, String name) {
+        write(id, name != null ? name : "");
+    }
+
+    // Retire une entrée après une suppression
+    public void remove(String id) {
+        write(id, null);
+    }
+
+    // Publie une copie modifiée du dictionnaire ("name" null = suppression)
+    private void write(String id, String name) {
+        synchronized (writeLock) {
+            if (pendingWrites != null) {
+                pendingWrites.put(id, name);
+            }
+            Map<String, String> copy = new HashMap<>(names);
+            if (name != null) {
+                copy.put(id, name);
+            } else {
+                copy.remove(id);
+            }
+            names = Collections.unmodifiableMap(copy);
+        }
+    }
+}
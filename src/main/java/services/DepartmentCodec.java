@@ -0,0 +1,56 @@
+package services;
+
+import model.Department;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+// Codec BSON <-> Department (collection "departments")
+public class DepartmentCodec implements Codec<Department> {
+
+    @Override
+    public void encode(BsonWriter writer, Department department, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        ModelCodecProvider.writeId(writer, department.getId());
+        ModelCodecProvider.writeString(writer, "name", department.getName());
+        ModelCodecProvider.writeString(writer, "description", department.getDescription());
+        if (department.getMaxConcurrentAbsences() != null) {
+            writer.writeInt32("maxConcurrentAbsences", department.getMaxConcurrentAbsences());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Department decode(BsonReader reader, DecoderContext decoderContext) {
+        Department dept = new Department();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    dept.setId(ModelCodecProvider.readId(reader));
+                    break;
+                case "name":
+                    dept.setName(ModelCodecProvider.readString(reader));
+                    break;
+                case "description":
+                    dept.setDescription(ModelCodecProvider.readString(reader));
+                    break;
+                case "maxConcurrentAbsences":
+                    dept.setMaxConcurrentAbsences(ModelCodecProvider.readInteger(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return dept;
+    }
+
+    @Override
+    public Class<Department> getEncoderClass() {
+        return Department.class;
+    }
+}
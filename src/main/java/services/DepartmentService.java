@@ -1,68 +1,83 @@
 package services;
 
 import model.Department;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import model.NamedItem;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-// Service pour gérer les départements dans la base de données
+// Service pour gérer les départements (MongoDB ou stockage embarqué, voir Repositories)
+// Les documents sont décodés directement en Department par DepartmentCodec
 public class DepartmentService {
-    private MongoCollection<Document> collection;
+    private Repository<Department> repository;
 
     public DepartmentService() {
-        MongoDatabase db = MongoService.getInstance().getDatabase();
-        this.collection = db.getCollection("departments");
+        this.repository = Repositories.departments();
+    }
+
+    // Index nécessaires aux requêtes de ce service (créés par IndexManager)
+    static List<IndexModel> indexes() {
+        // Tri par nom sans la casse : même collation que findSorted
+        return Collections.singletonList(new IndexModel(Indexes.ascending("name", "_id"),
+                new IndexOptions().collation(MongoRepository.CASE_INSENSITIVE)));
     }
 
     // Sauvegarde un département (ajout ou modification)
     public void save(Department department) {
-        Document doc = new Document();
-        if (department.getId() != null && !department.getId().isEmpty()) {
-            doc.append("_id", new ObjectId(department.getId()));
-        }
-        doc.append("name", department.getName())
-           .append("description", department.getDescription());
-
-        // Si c'est nouveau, on insère, sinon on met à jour
-        if (department.getId() == null || department.getId().isEmpty()) {
-            collection.insertOne(doc);
-            department.setId(doc.getObjectId("_id").toString());
-        } else {
-            collection.replaceOne(new Document("_id", new ObjectId(department.getId())), doc);
-        }
+        Metrics.time("DepartmentService.save", () -> {
+            // Si c'est nouveau, on insère, sinon on met à jour
+            if (department.getId() == null || department.getId().isEmpty()) {
+                department.setId(new ObjectId().toString());
+                repository.insert(department);
+            } else {
+                repository.replace(department);
+            }
+            DepartmentCache.getInstance().put(department.getId(), department.getName());
+            LeaveOccupancy.getInstance().departmentSaved(department);
+        });
     }
 
     // Récupère tous les départements
     public List<Department> findAll() {
-        List<Department> departments = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            departments.add(mapToDepartment(doc));
-        }
-        return departments;
+        return Metrics.time("DepartmentService.findAll", () -> {
+            List<Department> departments = new ArrayList<>();
+            repository.forEach(1000, departments::add);
+            return departments;
+        });
+    }
+
+    // Récupère uniquement l'id et le nom de chaque département, triés par nom (listes déroulantes)
+    public List<NamedItem> findSummaries() {
+        return Metrics.time("DepartmentService.findSummaries", () -> {
+            List<NamedItem> summaries = new ArrayList<>();
+            for (Department dept : repository.findSorted("name", "name")) {
+                summaries.add(new NamedItem(dept.getId(), dept.getName()));
+            }
+            return summaries;
+        });
+    }
+
+    // Compte les départements (métadonnées de la collection, sans parcours) avec l'instant du comptage
+    public CountResult count() {
+        return Metrics.time("DepartmentService.count", () -> repository.count(new Criteria()));
     }
 
     // Trouve un département par son ID
     public Department findById(String id) {
-        Document doc = collection.find(new Document("_id", new ObjectId(id))).first();
-        return doc != null ? mapToDepartment(doc) : null;
+        return Metrics.time("DepartmentService.findById", () -> repository.findById(id));
     }
 
     // Supprime un département
     public void delete(String id) {
-        collection.deleteOne(new Document("_id", new ObjectId(id)));
-    }
-
-    // Convertit un Document MongoDB en objet Department
-    private Department mapToDepartment(Document doc) {
-        Department dept = new Department();
-        dept.setId(doc.getObjectId("_id").toString());
-        dept.setName(doc.getString("name"));
-        dept.setDescription(doc.getString("description"));
-        return dept;
+        Metrics.time("DepartmentService.delete", () -> {
+            repository.delete(id);
+            DepartmentCache.getInstance().remove(id);
+            LeaveOccupancy.getInstance().departmentDeleted(id);
+        });
     }
 }
-
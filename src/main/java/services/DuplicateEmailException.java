@@ -0,0 +1,21 @@
+package services;
+
+import model.Employee;
+
+// Refus d'enregistrer un employé dont l'email est déjà celui d'un autre employé
+// Le message est destiné à l'utilisateur
+public class DuplicateEmailException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    // Employee n'est pas sérialisable : l'employé existant ne suit pas l'exception
+    private final transient Employee existing;
+
+    public DuplicateEmailException(String email, Employee existing) {
+        super("The email " + email + " is already used by " + existing.getName());
+        this.existing = existing;
+    }
+
+    // Employé qui utilise déjà l'email
+    public Employee getExisting() {
+        return existing;
+    }
+}
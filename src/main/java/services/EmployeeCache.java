@@ -0,0 +1,215 @@
+package services;
+
+import model.Employee;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache mémoire des employés (lecture directe puis MongoDB en cas d'absence), désactivé par défaut
+// Activation : -Dems.employeeCache.enabled=true, taille : -Dems.employeeCache.maxSize=10000
+// Index secondaires par email (sans la casse) et par département ; éviction LRU ; copies défensives
+public class EmployeeCache {
+    private static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static EmployeeCache instance;
+    private static boolean initialized;
+
+    private final int maxSize;
+    private final LinkedHashMap<String, Employee> byId;
+    private final Map<String, String> idByEmail = new HashMap<>();
+    private final Map<String, Set<String>> idsByDepartment = new HashMap<>();
+    // Départements dont tous les employés sont en cache (chargés par putDepartment, puis tenus à jour
+    // par put et remove) : seuls ceux-là peuvent être servis sans lire la base
+    private final Set<String> completeDepartments = new HashSet<>();
+    // Incrémentée à chaque écriture (voir putIfAbsent)
+    private long version;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private EmployeeCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Employee> eldest) {
+                if (size() > EmployeeCache.this.maxSize) {
+                    // Le département perd un employé du cache : il n'est plus complet
+                    unindex(eldest.getValue());
+                    completeDepartments.remove(eldest.getValue().getDepartmentId());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Retourne le cache partagé, ou null s'il n'est pas activé
+    public static synchronized EmployeeCache shared() {
+        if (!initialized) {
+            initialized = true;
+            if (Boolean.getBoolean("ems.employeeCache.enabled")) {
+                instance = new EmployeeCache(Integer.getInteger("ems.employeeCache.maxSize", DEFAULT_MAX_SIZE));
+                // Suit les modifications faites par les autres clients
+                EmployeeCache cache = instance;
+                ChangeStreamService.getInstance().subscribe(Employee.class, event -> {
+                    if (event.getType() == ChangeEvent.Type.RELOAD) {
+                        cache.clear();
+                    } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                        cache.remove(event.getId());
+                    } else {
+                        cache.put(event.getDocument());
+                    }
+                });
+            }
+        }
+        return instance;
+    }
+
+    // Employé par id, null si absent du cache
+    public synchronized Employee get(String id) {
+        Employee emp = byId.get(id);
+        record(emp != null);
+        return emp != null ? copy(emp) : null;
+    }
+
+    // Employé par email (sans la casse), null si absent du cache
+    public synchronized Employee getByEmail(String email) {
+        String id = email != null ? idByEmail.get(emailKey(email)) : null;
+        Employee emp = id != null ? byId.get(id) : null;
+        record(emp != null);
+        return emp != null ? copy(emp) : null;
+    }
+
+    // Tous les employés du département, ou null si le cache ne les a pas tous
+    public synchronized List<Employee> getByDepartment(String departmentId) {
+        boolean complete = completeDepartments.contains(departmentId);
+        record(complete);
+        if (!complete) {
+            return null;
+        }
+        List<Employee> employees = new ArrayList<>();
+        for (String id : idsByDepartment.getOrDefault(departmentId, Set.of())) {
+            employees.add(copy(byId.get(id)));
+        }
+        return employees;
+    }
+
+    // Ajoute ou remplace un employé (après lecture ou écriture)
+    public synchronized void put(Employee employee) {
+        if (employee == null || employee.getId() == null) {
+            return;
+        }
+        version++;
+        store(employee);
+    }
+
+    // Version courante, à lire avant une lecture en base destinée à putIfAbsent
+    public synchronized long version() {
+        return version;
+    }
+
+    // Ajoute un employé lu en base, sauf s'il est déjà en cache ou si une écriture a eu lieu depuis
+    // "readVersion" : la lecture a pu croiser une modification ou une suppression plus récente
+    public synchronized void putIfAbsent(Employee employee, long readVersion) {
+        if (employee == null || employee.getId() == null || version != readVersion) {
+            return;
+        }
+        if (!byId.containsKey(employee.getId())) {
+            store(employee);
+        }
+    }
+
+    // Ajoute tous les employés d'un département lus en base et le marque complet, sauf si une écriture
+    // a eu lieu depuis "readVersion" (voir putIfAbsent)
+    public synchronized void putDepartment(String departmentId, List<Employee> employees, long readVersion) {
+        if (departmentId == null || version != readVersion || employees.size() > maxSize) {
+            return;
+        }
+        for (Employee employee : employees) {
+            store(employee);
+        }
+        // Les derniers ajoutés sont les plus récents : l'éviction LRU ne peut pas en avoir retiré
+        completeDepartments.add(departmentId);
+    }
+
+    // Retire un employé (après suppression)
+    public synchronized void remove(String id) {
+        version++;
+        Employee previous = byId.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        byId.clear();
+        idByEmail.clear();
+        idsByDepartment.clear();
+        completeDepartments.clear();
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    // Résumé des statistiques, ex. "employee cache: 950/10000 entries, 12034 hits, 980 misses (92.5% hit rate), 0 evictions"
+    public String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double rate = h + m == 0 ? 0 : 100.0 * h / (h + m);
+        return String.format("employee cache: %d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(), maxSize, h, m, rate, evictions.get());
+    }
+
+    private void record(boolean hit) {
+        (hit ? hits : misses).incrementAndGet();
+    }
+
+    // Remplace la version en cache et ses entrées dans les index secondaires
+    private void store(Employee employee) {
+        Employee previous = byId.remove(employee.getId());
+        if (previous != null) {
+            unindex(previous);
+        }
+        Employee stored = copy(employee);
+        byId.put(stored.getId(), stored);
+        if (stored.getEmail() != null) {
+            idByEmail.put(emailKey(stored.getEmail()), stored.getId());
+        }
+        if (stored.getDepartmentId() != null) {
+            idsByDepartment.computeIfAbsent(stored.getDepartmentId(), key -> new HashSet<>()).add(stored.getId());
+        }
+    }
+
+    private void unindex(Employee emp) {
+        if (emp.getEmail() != null) {
+            idByEmail.remove(emailKey(emp.getEmail()), emp.getId());
+        }
+        Set<String> ids = emp.getDepartmentId() != null ? idsByDepartment.get(emp.getDepartmentId()) : null;
+        if (ids != null) {
+            ids.remove(emp.getId());
+            if (ids.isEmpty()) {
+                idsByDepartment.remove(emp.getDepartmentId());
+            }
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Les objets du modèle sont modifiables : le cache ne partage jamais les siens
+    private static Employee copy(Employee emp) {
+        return new Employee(emp.getId(), emp.getName(), emp.getEmail(), emp.getPosition(),
+                emp.getDepartmentId(), emp.getHireDate());
+    }
+}
@@ -0,0 +1,62 @@
+package services;
+
+import model.Employee;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+// Codec BSON <-> Employee (collection "employees")
+public class EmployeeCodec implements Codec<Employee> {
+
+    @Override
+    public void encode(BsonWriter writer, Employee employee, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        ModelCodecProvider.writeId(writer, employee.getId());
+        ModelCodecProvider.writeString(writer, "name", employee.getName());
+        ModelCodecProvider.writeString(writer, "email", employee.getEmail());
+        ModelCodecProvider.writeString(writer, "position", employee.getPosition());
+        ModelCodecProvider.writeString(writer, "departmentId", employee.getDepartmentId());
+        ModelCodecProvider.writeDate(writer, "hireDate", employee.getHireDate());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Employee decode(BsonReader reader, DecoderContext decoderContext) {
+        Employee emp = new Employee();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    emp.setId(ModelCodecProvider.readId(reader));
+                    break;
+                case "name":
+                    emp.setName(ModelCodecProvider.readString(reader));
+                    break;
+                case "email":
+                    emp.setEmail(ModelCodecProvider.readString(reader));
+                    break;
+                case "position":
+                    emp.setPosition(ModelCodecProvider.readString(reader));
+                    break;
+                case "departmentId":
+                    emp.setDepartmentId(ModelCodecProvider.readString(reader));
+                    break;
+                case "hireDate":
+                    emp.setHireDate(ModelCodecProvider.readDate(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return emp;
+    }
+
+    @Override
+    public Class<Employee> getEncoderClass() {
+        return Employee.class;
+    }
+}
@@ -0,0 +1,127 @@
+package services;
+
+import model.Employee;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+// Filtres de la liste des employés (département, poste, période d'embauche), tous facultatifs,
+// et tri par colonne ; traduits en critères exécutés par le stockage : seules les lignes retenues sont lues
+public class EmployeeQuery {
+    // Champs triables par la base (chacun a son index (champ, _id), voir EmployeeService.indexes)
+    private static final Map<String, Function<Employee, Object>> SORT_KEYS = Map.of(
+            "name", Employee::getName,
+            "email", Employee::getEmail,
+            "position", Employee::getPosition,
+            "hireDate", Employee::getHireDate);
+    // Champs triés sans tenir compte de la casse (collation de leur index)
+    private static final Set<String> IGNORE_CASE = Set.of("name", "email");
+
+    private String departmentId;
+    private String position;
+    private LocalDate hiredFrom;
+    private LocalDate hiredTo;
+    private String sortField;
+    private boolean descending;
+
+    // Employés de ce département (null = tous)
+    public EmployeeQuery department(String departmentId) {
+        this.departmentId = departmentId;
+        return this;
+    }
+
+    // Employés ayant exactement ce poste (null = tous)
+    public EmployeeQuery position(String position) {
+        this.position = position;
+        return this;
+    }
+
+    // Employés embauchés entre ces deux dates incluses (null = pas de borne)
+    public EmployeeQuery hiredBetween(LocalDate from, LocalDate to) {
+        this.hiredFrom = from;
+        this.hiredTo = to;
+        return this;
+    }
+
+    // Trie par ce champ : name, email, position ou hireDate (null = ordre de création)
+    public EmployeeQuery sortBy(String field, boolean descending) {
+        if (field != null && !SORT_KEYS.containsKey(field)) {
+            throw new IllegalArgumentException("Unsupported sort field " + field);
+        }
+        this.sortField = field;
+        this.descending = descending;
+        return this;
+    }
+
+    public boolean isSorted() {
+        return sortField != null;
+    }
+
+    // Vrai si aucun filtre n'est actif (le tri n'est pas un filtre)
+    public boolean isEmpty() {
+        return departmentId == null && position == null && hiredFrom == null && hiredTo == null;
+    }
+
+    // Même test en mémoire (éléments reçus du flux de changements, résultats de recherche)
+    public boolean matches(Employee employee) {
+        if (departmentId != null && !departmentId.equals(employee.getDepartmentId())) {
+            return false;
+        }
+        if (position != null && !position.equals(employee.getPosition())) {
+            return false;
+        }
+        LocalDate hired = employee.getHireDate();
+        if ((hiredFrom != null || hiredTo != null) && hired == null) {
+            return false;
+        }
+        return (hiredFrom == null || !hired.isBefore(hiredFrom)) && (hiredTo == null || !hired.isAfter(hiredTo));
+    }
+
+    // Ordre de la base appliqué en mémoire (résultats de recherche), null sans tri
+    @SuppressWarnings("unchecked")
+    public Comparator<Employee> comparator() {
+        if (sortField == null) {
+            return null;
+        }
+        Comparator<Object> values = IGNORE_CASE.contains(sortField)
+                ? Comparator.comparing(value -> Criteria.foldCase((String) value))
+                : (a, b) -> ((Comparable<Object>) a).compareTo(b);
+        Comparator<Employee> order = Comparator.comparing(SORT_KEYS.get(sortField), Comparator.nullsFirst(values))
+                .thenComparing(Employee::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+        return descending ? order.reversed() : order;
+    }
+
+    // Vrai si la modification peut déplacer l'employé dans l'ordre de tri
+    public boolean movesInSort(Employee before, Employee after) {
+        return sortField != null && !Objects.equals(sortKey(before), sortKey(after));
+    }
+
+    // Valeur du champ de tri (point de départ des pages suivantes), null sans tri
+    Object sortKey(Employee employee) {
+        return sortField != null ? SORT_KEYS.get(sortField).apply(employee) : null;
+    }
+
+    Criteria toCriteria() {
+        Criteria criteria = new Criteria();
+        if (departmentId != null) {
+            criteria.eq("departmentId", departmentId);
+        }
+        if (position != null) {
+            criteria.eq("position", position);
+        }
+        if (hiredFrom != null) {
+            criteria.onOrAfter("hireDate", hiredFrom);
+        }
+        if (hiredTo != null) {
+            criteria.onOrBefore("hireDate", hiredTo);
+        }
+        if (sortField != null) {
+            criteria.sortBy(sortField, descending, IGNORE_CASE.contains(sortField));
+        }
+        return criteria;
+    }
+}
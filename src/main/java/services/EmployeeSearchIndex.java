@@ -0,0 +1,464 @@
+package services;
+
+import model.Employee;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// Index de recherche en mémoire sur le nom, l'email et le poste des employés (pattern Singleton)
+// Index inversé : chaque trigramme ("jea", "ean"...) et chaque début de mot d'une ou deux lettres
+// ("^j", "^je") pointe vers la liste triée des employés qui le contiennent. Une recherche
+// intersecte quelques listes au lieu de parcourir tous les employés.
+// Chargé une seule fois, puis tenu à jour par EmployeeService.save/delete et par le flux de changements
+public class EmployeeSearchIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Champs indexés, par ordre d'importance pour le classement
+    private static final int NAME = 0;
+    private static final int EMAIL = 1;
+    private static final int POSITION = 2;
+    private static final int[] EXACT_SCORES = {100, 60, 40};
+    private static final int PREFIX_SCORES = 30;
+    private static final int[] CONTAINS_SCORES = {20, 10, 5};
+    // Reconstruction des listes quand les entrées périmées dépassent les vivantes
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+    private static EmployeeSearchIndex instance;
+
+    // Liste triée d'emplacements (ajouts toujours croissants : elle reste triée)
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    // Résultat d'une recherche : les premiers employés par pertinence et le nombre total de correspondances
+    public static class Result {
+        private final List<Employee> employees;
+        private final int total;
+
+        Result(List<Employee> employees, int total) {
+            this.employees = employees;
+            this.total = total;
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    // Chaque version d'un employé occupe un emplacement ; une modification en crée un nouveau
+    private final List<Employee> employees = new ArrayList<>();
+    private final List<String[]> fields = new ArrayList<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int deadSlots;
+    private volatile boolean loaded;
+    private final AtomicInteger invalidations = new AtomicInteger();
+    // Écritures reçues pendant un rechargement (id -> employé, null = suppression), null hors rechargement
+    private Map<String, Employee> pendingWrites;
+    private boolean listening;
+
+    private EmployeeSearchIndex() {
+    }
+
+    // Retourne l'instance unique de l'index (Singleton)
+    public static synchronized EmployeeSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new EmployeeSearchIndex();
+        }
+        return instance;
+    }
+
+    // Construit l'index s'il ne l'a pas encore été
+    public void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    // Relit tous les employés et reconstruit l'index
+    // Les écritures reçues pendant la lecture sont notées puis rejouées sur l'index reconstruit :
+    // la lecture a pu les manquer
+    public synchronized void reload() {
+        // Suit les modifications faites par les autres clients (avant la lecture, pour n'en manquer aucune)
+        if (!listening) {
+            listening = true;
+            ChangeStreamService.getInstance().subscribe(Employee.class, event -> {
+                if (event.getType() == ChangeEvent.Type.RELOAD) {
+                    invalidate();
+                } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                    remove(event.getId());
+                } else if (event.getDocument() != null) {
+                    put(event.getDocument());
+                }
+            });
+        }
+        Metrics.time("EmployeeSearchIndex.reload", () -> {
+            int expected = invalidations.get();
+            lock.writeLock().lock();
+            try {
+                pendingWrites = new LinkedHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<Employee> all = new ArrayList<>();
+            boolean read = false;
+            try {
+                Repositories.employees().forEach(1000, all::add);
+                read = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    Map<String, Employee> writes = pendingWrites;
+                    pendingWrites = null;
+                    if (read) {
+                        clear();
+                        all.forEach(this::add);
+                        writes.forEach((id, employee) -> {
+                            kill(id);
+                            if (employee != null) {
+                                add(employee);
+                            }
+                        });
+                    }
+                    // Lecture échouée, ou invalidation pendant la lecture (import...) : à reconstruire encore
+                    loaded = read && expected == invalidations.get();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    // Invalide l'index : il sera reconstruit au prochain ensureLoaded() (après un import par exemple)
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        loaded = false;
+    }
+
+    // Nombre d'employés indexés
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ajoute ou remplace un employé après une sauvegarde
+    public void put(Employee employee) {
+        if (employee.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.put(employee.getId(), employee);
+                return;
+            }
+            if (!loaded) {
+                return;
+            }
+            kill(employee.getId());
+            add(employee);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retire un employé après une suppression
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.put(id, null);
+                return;
+            }
+            if (!loaded) {
+                return;
+            }
+            kill(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Recherche les employés dont le nom, l'email ou le poste contiennent tous les mots de la requête
+    // Les mots d'une ou deux lettres ne cherchent que les débuts de mots ; les résultats sont classés
+    // (mot exact, début de mot, puis simple inclusion ; le nom compte plus que l'email et le poste)
+    // "filter" écarte en plus des employés (null = aucun filtre)
+    public Result search(String query, int limit, Predicate<Employee> filter) {
+        return Metrics.time("EmployeeSearchIndex.search", () -> {
+            String[] terms = terms(query);
+            if (terms.length == 0) {
+                return new Result(new ArrayList<>(), 0);
+            }
+            lock.readLock().lock();
+            try {
+                int[] candidates = candidates(terms);
+                int[] scores = new int[candidates.length];
+                // Les scores sont de petits entiers : un histogramme donne le seuil des "limit" meilleurs
+                int[] histogram = new int[terms.length * EXACT_SCORES[NAME] + 1];
+                int total = 0;
+                for (int i = 0; i < candidates.length; i++) {
+                    if (filter != null && !filter.test(employees.get(candidates[i]))) {
+                        continue;
+                    }
+                    scores[i] = score(fields.get(candidates[i]), terms);
+                    if (scores[i] > 0) {
+                        histogram[scores[i]]++;
+                        total++;
+                    }
+                }
+                int threshold = histogram.length - 1;
+                for (int kept = histogram[threshold]; threshold > 1 && kept < limit; ) {
+                    kept += histogram[--threshold];
+                }
+                int atThreshold = limit;
+                for (int score = threshold + 1; score < histogram.length; score++) {
+                    atThreshold -= histogram[score];
+                }
+                List<int[]> selected = new ArrayList<>(Math.min(limit, total));
+                for (int i = 0; i < candidates.length; i++) {
+                    if (scores[i] > threshold || scores[i] == threshold && atThreshold-- > 0) {
+                        selected.add(new int[] {candidates[i], scores[i]});
+                    }
+                }
+                // Seuls les résultats retenus sont triés : pertinence, puis nom
+                selected.sort(Comparator.<int[]>comparingInt(entry -> -entry[1])
+                        .thenComparing(entry -> fields.get(entry[0])[NAME]));
+                List<Employee> ranked = new ArrayList<>(selected.size());
+                for (int[] entry : selected) {
+                    ranked.add(copy(employees.get(entry[0])));
+                }
+                return new Result(ranked, total);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    // Emplacements vivants qui contiennent toutes les clés des mots de la requête
+    // (intersection des listes, en commençant par la plus courte)
+    private int[] candidates(String[] terms) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String term : terms) {
+            keys.addAll(keys(term));
+        }
+        List<Postings> lists = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Postings list = postings.get(key);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(result, size, lists.get(i));
+        }
+        int alive = 0;
+        for (int i = 0; i < size; i++) {
+            if (employees.get(result[i]) != null) {
+                result[alive++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, alive);
+    }
+
+    // Garde dans "slots" (trié) ceux qui figurent aussi dans la liste ; retourne la nouvelle taille
+    private static int intersect(int[] slots, int size, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < list.size; i++) {
+            int slot = slots[i];
+            // Recherche exponentielle puis dichotomique : la liste peut être bien plus longue
+            int step = 1;
+            int high = j;
+            while (high < list.size && list.slots[high] < slot) {
+                j = high + 1;
+                high += step;
+                step *= 2;
+            }
+            int found = Arrays.binarySearch(list.slots, j, Math.min(high + 1, list.size), slot);
+            if (found >= 0) {
+                slots[kept++] = slot;
+                j = found + 1;
+            } else {
+                j = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    // Pertinence d'un employé pour tous les mots de la requête, 0 si l'un d'eux ne correspond pas
+    private static int score(String[] values, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (int field = NAME; field <= POSITION; field++) {
+                best = Math.max(best, score(values[field], term, field));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Pertinence d'un mot dans un champ : mot entier, début de mot, inclusion (trois lettres ou plus)
+    private static int score(String value, String term, int field) {
+        int best = 0;
+        for (int at = value.indexOf(term); at >= 0; at = value.indexOf(term, at + 1)) {
+            boolean starts = at == 0 || !Character.isLetterOrDigit(value.charAt(at - 1));
+            int end = at + term.length();
+            boolean ends = end == value.length() || !Character.isLetterOrDigit(value.charAt(end));
+            if (starts && ends) {
+                return EXACT_SCORES[field];
+            }
+            if (starts) {
+                best = Math.max(best, PREFIX_SCORES - field * 5);
+            } else if (term.length() >= 3) {
+                best = Math.max(best, CONTAINS_SCORES[field]);
+            }
+        }
+        return best;
+    }
+
+    private void add(Employee employee) {
+        int slot = employees.size();
+        String[] values = {
+            normalize(employee.getName()), normalize(employee.getEmail()), normalize(employee.getPosition())
+        };
+        employees.add(copy(employee));
+        fields.add(values);
+        slotById.put(employee.getId(), slot);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String value : values) {
+            for (String word : SEPARATORS.split(value)) {
+                keys.addAll(keys(word));
+                if (word.length() >= 3) {
+                    // Débuts de mots, pour les recherches d'une ou deux lettres
+                    keys.addAll(keys(word.substring(0, 1)));
+                    keys.addAll(keys(word.substring(0, 2)));
+                } else if (word.length() == 2) {
+                    keys.addAll(keys(word.substring(0, 1)));
+                }
+            }
+        }
+        for (String key : keys) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(slot);
+        }
+    }
+
+    // Marque l'ancienne version d'un employé comme périmée (retirée des listes à la prochaine reconstruction)
+    private void kill(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            employees.set(slot, null);
+            fields.set(slot, null);
+            deadSlots++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadSlots >= MIN_DEAD_FOR_COMPACTION && deadSlots > slotById.size()) {
+            List<Employee> alive = new ArrayList<>(slotById.size());
+            for (Employee employee : employees) {
+                if (employee != null) {
+                    alive.add(employee);
+                }
+            }
+            clear();
+            alive.forEach(this::add);
+        }
+    }
+
+    private void clear() {
+        employees.clear();
+        fields.clear();
+        slotById.clear();
+        postings.clear();
+        deadSlots = 0;
+    }
+
+    // Clés d'un mot : ses trigrammes, ou "^" + le mot s'il fait une ou deux lettres (début de mot)
+    private static List<String> keys(String word) {
+        List<String> keys = new ArrayList<>();
+        if (word.isEmpty()) {
+            return keys;
+        }
+        if (word.length() < 3) {
+            keys.add("^" + word);
+            return keys;
+        }
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            keys.add(word.substring(i, i + 3));
+        }
+        return keys;
+    }
+
+    // Mots de la requête, normalisés comme les champs indexés
+    private static String[] terms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String word : SEPARATORS.split(normalize(query))) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    // Minuscules sans accents : "Élodie" et "elodie" se retrouvent
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && ascii; i++) {
+            ascii = value.charAt(i) < 128;
+        }
+        if (ascii) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // Les objets du modèle sont modifiables : l'index ne partage jamais les siens
+    private static Employee copy(Employee emp) {
+        return new Employee(emp.getId(), emp.getName(), emp.getEmail(), emp.getPosition(),
+                emp.getDepartmentId(), emp.getHireDate());
+    }
+}
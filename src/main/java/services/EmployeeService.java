@@ -1,92 +1,255 @@
 package services;
 
 import model.Employee;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import model.NamedItem;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import org.bson.types.ObjectId;
 
-import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
-// Service pour gérer les employés dans la base de données MongoDB
+// Service pour gérer les employés (MongoDB ou stockage embarqué, voir Repositories)
+// Les documents sont décodés directement en Employee par EmployeeCodec
 public class EmployeeService {
-    private MongoCollection<Document> collection;
+    // Champs affichés dans le tableau (seuls champs lus pour les pages filtrées)
+    private static final String[] TABLE_FIELDS = {"name", "email", "position", "departmentId", "hireDate"};
+
+    private Repository<Employee> repository;
+    // Cache partagé, null s'il n'est pas activé (voir EmployeeCache)
+    private final EmployeeCache cache;
 
     public EmployeeService() {
-        MongoDatabase db = MongoService.getInstance().getDatabase();
-        this.collection = db.getCollection("employees");
+        this.repository = Repositories.employees();
+        this.cache = EmployeeCache.shared();
+    }
+
+    // Index nécessaires aux requêtes de ce service (créés par IndexManager)
+    static List<IndexModel> indexes() {
+        return Arrays.asList(
+            // Filtres du tableau : égalité sur le champ, pages triées par _id
+            new IndexModel(Indexes.ascending("departmentId", "_id")),
+            // Filtre ou tri par poste, filtre ou tri par date d'embauche
+            new IndexModel(Indexes.ascending("position", "_id")),
+            new IndexModel(Indexes.ascending("hireDate", "_id")),
+            // Tri par nom ou email sans la casse : même collation que les requêtes triées
+            new IndexModel(Indexes.ascending("name", "_id"), new IndexOptions().collation(MongoRepository.CASE_INSENSITIVE)),
+            new IndexModel(Indexes.ascending("email", "_id"), new IndexOptions().collation(MongoRepository.CASE_INSENSITIVE)),
+            // Un département trié par nom
+            new IndexModel(Indexes.ascending("departmentId", "name", "_id"),
+                    new IndexOptions().collation(MongoRepository.CASE_INSENSITIVE))
+        );
     }
 
     // Sauvegarde un employé (ajout ou modification)
     public void save(Employee employee) {
-        Document doc = new Document();
-        if (employee.getId() != null && !employee.getId().isEmpty()) {
-            doc.append("_id", new ObjectId(employee.getId()));
-        }
-        doc.append("name", employee.getName())
-           .append("email", employee.getEmail())
-           .append("position", employee.getPosition())
-           .append("departmentId", employee.getDepartmentId())
-           .append("hireDate", convertToDate(employee.getHireDate()));
-
-        // Si c'est nouveau, on insère, sinon on met à jour
-        if (employee.getId() == null || employee.getId().isEmpty()) {
-            collection.insertOne(doc);
-            employee.setId(doc.getObjectId("_id").toString());
-        } else {
-            collection.replaceOne(new Document("_id", new ObjectId(employee.getId())), doc);
-        }
+        Metrics.time("EmployeeService.save", () -> {
+            Employee sameEmail = employee.getEmail() != null ? findByEmail(employee.getEmail()) : null;
+            if (sameEmail != null && !sameEmail.getId().equals(employee.getId())) {
+                throw new DuplicateEmailException(employee.getEmail(), sameEmail);
+            }
+            // Si c'est nouveau, on insère, sinon on met à jour
+            if (employee.getId() == null || employee.getId().isEmpty()) {
+                employee.setId(new ObjectId().toString());
+                repository.insert(employee);
+            } else {
+                repository.replace(employee);
+            }
+            if (cache != null) {
+                cache.put(employee);
+            }
+            LeaveOccupancy.getInstance().employeeSaved(employee);
+            EmployeeSearchIndex.getInstance().put(employee);
+        });
     }
 
     // Récupère tous les employés
     public List<Employee> findAll() {
-        List<Employee> employees = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            employees.add(mapToEmployee(doc));
-        }
-        return employees;
+        return Metrics.time("EmployeeService.findAll", () -> {
+            List<Employee> employees = new ArrayList<>();
+            repository.forEach(1000, employees::add);
+            return employees;
+        });
+    }
+
+    // Parcourt tous les employés avec un curseur (lots de "batchSize"), sans tout garder en mémoire
+    public void forEach(int batchSize, Consumer<Employee> consumer) {
+        Metrics.time("EmployeeService.forEach", () -> repository.forEach(batchSize, consumer));
+    }
+
+    // Récupère une page d'employés triés par _id (pagination keyset à partir de "from" inclus)
+    public List<Employee> findPage(Employee from, int skip, int limit) {
+        return Metrics.time("EmployeeService.findPage", () -> repository.findPage(from != null ? from.getId() : null, skip, limit));
+    }
+
+    // Récupère une page d'employés vérifiant les filtres, dans l'ordre de tri de la requête (à défaut par _id)
+    // (pagination keyset à partir de "from" inclus)
+    public List<Employee> findPage(EmployeeQuery query, Employee from, int skip, int limit) {
+        return Metrics.time("EmployeeService.findPageFiltered", () -> repository.findPage(query.toCriteria(),
+                from != null ? query.sortKey(from) : null, from != null ? from.getId() : null, skip, limit, TABLE_FIELDS));
+    }
+
+    // Compte les employés vérifiant les filtres (sans filtre : métadonnées de la collection)
+    // avec l'instant du comptage (voir CountResult)
+    public CountResult count(EmployeeQuery query) {
+        return Metrics.time("EmployeeService.countFiltered", () -> repository.count(query.toCriteria()));
+    }
+
+    // Postes existants, triés (liste déroulante du filtre par poste)
+    public List<String> findPositions() {
+        return Metrics.time("EmployeeService.findPositions", () -> {
+            List<String> positions = repository.distinct("position");
+            positions.sort(String.CASE_INSENSITIVE_ORDER);
+            return positions;
+        });
+    }
+
+    // Récupère uniquement l'id et le nom de chaque employé, triés par nom (listes déroulantes)
+    public List<NamedItem> findSummaries() {
+        return Metrics.time("EmployeeService.findSummaries", () -> {
+            List<NamedItem> summaries = new ArrayList<>();
+            for (Employee emp : repository.findSorted("name", "name")) {
+                summaries.add(new NamedItem(emp.getId(), emp.getName()));
+            }
+            return summaries;
+        });
+    }
+
+    // Compte les employés (métadonnées de la collection, sans parcours) avec l'instant du comptage
+    public CountResult count() {
+        return Metrics.time("EmployeeService.count", () -> repository.count(new Criteria()));
     }
 
     // Trouve un employé par son ID
     public Employee findById(String id) {
-        Document doc = collection.find(new Document("_id", new ObjectId(id))).first();
-        return doc != null ? mapToEmployee(doc) : null;
+        return Metrics.time("EmployeeService.findById", () -> {
+            if (cache != null) {
+                Employee cached = cache.get(id);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            // Version lue avant la requête : si une écriture passe entre-temps, le résultat est peut-être
+            // déjà périmé et n'est pas mis en cache
+            long version = cache != null ? cache.version() : 0;
+            Employee emp = repository.findById(id);
+            if (cache != null) {
+                cache.putIfAbsent(emp, version);
+            }
+            return emp;
+        });
     }
 
-    // Supprime un employé
-    public void delete(String id) {
-        collection.deleteOne(new Document("_id", new ObjectId(id)));
+    // Trouve un employé par son email (sans la casse), null s'il n'y en a pas
+    public Employee findByEmail(String email) {
+        return Metrics.time("EmployeeService.findByEmail", () -> {
+            if (cache != null) {
+                Employee cached = cache.getByEmail(email);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            long version = cache != null ? cache.version() : 0;
+            List<Employee> found = repository.findBy("email", List.of(email));
+            Employee emp = found.isEmpty() ? null : found.get(0);
+            if (cache != null) {
+                cache.putIfAbsent(emp, version);
+            }
+            return emp;
+        });
     }
 
-    // Convertit un Document MongoDB en objet Employee
-    private Employee mapToEmployee(Document doc) {
-        Employee emp = new Employee();
-        emp.setId(doc.getObjectId("_id").toString());
-        emp.setName(doc.getString("name"));
-        emp.setEmail(doc.getString("email"));
-        emp.setPosition(doc.getString("position"));
-        emp.setDepartmentId(doc.getString("departmentId"));
-        Date hireDate = doc.getDate("hireDate");
-        if (hireDate != null) {
-            emp.setHireDate(convertToLocalDate(hireDate));
-        }
-        return emp;
+    // Emails déjà utilisés parmi ceux-ci (en minuscules) : le cache d'abord, puis une seule requête
+    // ($in) pour les autres
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return Metrics.time("EmployeeService.findExistingEmails", () -> {
+            Set<String> existing = new HashSet<>();
+            List<String> missing = new ArrayList<>();
+            for (String email : emails) {
+                Employee cached = cache != null ? cache.getByEmail(email) : null;
+                if (cached != null) {
+                    existing.add(email.toLowerCase(Locale.ROOT));
+                } else {
+                    missing.add(email);
+                }
+            }
+            for (Employee emp : repository.findBy("email", missing, "email")) {
+                existing.add(emp.getEmail().toLowerCase(Locale.ROOT));
+            }
+            return existing;
+        });
     }
 
-    // Convertit LocalDate en Date pour MongoDB
-    private Date convertToDate(LocalDate localDate) {
-        if (localDate == null) return null;
-        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    // Tous les employés d'un département (depuis le cache s'il les a tous, sinon en base)
+    public List<Employee> findByDepartmentId(String departmentId) {
+        return Metrics.time("EmployeeService.findByDepartmentId", () -> {
+            if (cache != null) {
+                List<Employee> cached = cache.getByDepartment(departmentId);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            long version = cache != null ? cache.version() : 0;
+            List<Employee> employees = repository.findBy("departmentId", List.of(departmentId));
+            if (cache != null) {
+                cache.putDepartment(departmentId, employees, version);
+            }
+            return employees;
+        });
     }
 
-    // Convertit Date en LocalDate
-    private LocalDate convertToLocalDate(Date date) {
-        if (date == null) return null;
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    // Recherche plein texte sur le nom, l'email et le poste (index en mémoire, construit au premier appel)
+    // parmi les employés vérifiant les filtres ; retourne les "limit" premiers résultats par pertinence
+    // et le nombre total de correspondances
+    public EmployeeSearchIndex.Result search(String text, EmployeeQuery filter, int limit) {
+        EmployeeSearchIndex index = EmployeeSearchIndex.getInstance();
+        index.ensureLoaded();
+        return index.search(text, limit, filter.isEmpty() ? null : filter::matches);
     }
-}
 
+    // Récupère les noms de plusieurs employés en une seule requête ($in)
+    public Map<String, String> findNamesByIds(Collection<String> ids) {
+        return Metrics.time("EmployeeService.findNamesByIds", () -> {
+            Map<String, String> names = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String id : ids) {
+                if (id != null && ObjectId.isValid(id)) {
+                    Employee cached = cache != null ? cache.get(id) : null;
+                    if (cached != null) {
+                        names.put(id, cached.getName());
+                    } else {
+                        missing.add(id);
+                    }
+                }
+            }
+            if (missing.isEmpty()) {
+                return names;
+            }
+            for (Employee emp : repository.findByIds(missing, "name")) {
+                names.put(emp.getId(), emp.getName());
+            }
+            return names;
+        });
+    }
+
+    // Supprime un employé
+    public void delete(String id) {
+        Metrics.time("EmployeeService.delete", () -> {
+            repository.delete(id);
+            if (cache != null) {
+                cache.remove(id);
+            }
+            LeaveOccupancy.getInstance().employeeDeleted(id);
+            EmployeeSearchIndex.getInstance().remove(id);
+        });
+    }
+}
@@ -0,0 +1,221 @@
+package services;
+
+import model.LeaveRequest;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// Export des employés et des demandes de congé en CSV ou NDJSON (gzip en option)
+// Les documents passent directement du curseur MongoDB au fichier : mémoire constante
+public class ExportService {
+    // Documents ramenés par aller-retour avec le serveur
+    private static final int CURSOR_BATCH_SIZE = 2000;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    public enum Format { CSV, NDJSON }
+
+    // Suivi de la progression, appelé depuis le thread de l'export
+    public interface ProgressListener {
+        void onProgress(long rowsWritten);
+    }
+
+    private final EmployeeService employeeService = new EmployeeService();
+    private final LeaveService leaveService = new LeaveService();
+
+    // Format et compression déduits du nom : .csv, .ndjson/.jsonl, suivi éventuellement de .gz
+    public static Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".csv") ? Format.CSV : Format.NDJSON;
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    // Exporte tous les employés ; retourne le nombre de lignes écrites
+    public long exportEmployees(Path file, ProgressListener listener) throws IOException {
+        DepartmentCache departments = DepartmentCache.getInstance();
+        departments.ensureLoaded();
+        String[] columns = {"id", "name", "email", "position", "departmentId", "department", "hireDate"};
+        try (RowWriter out = new RowWriter(file, columns, listener)) {
+            employeeService.forEach(CURSOR_BATCH_SIZE, emp -> out.write(
+                    emp.getId(), emp.getName(), emp.getEmail(), emp.getPosition(), emp.getDepartmentId(),
+                    departments.getName(emp.getDepartmentId()), format(emp.getHireDate())));
+            return out.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Exporte toutes les demandes de congé, avec le nom de l'employé ; retourne le nombre de lignes écrites
+    public long exportLeaves(Path file, ProgressListener listener) throws IOException {
+        String[] columns = {"id", "employeeId", "employeeName", "startDate", "endDate", "reason", "status"};
+        try (RowWriter out = new RowWriter(file, columns, listener)) {
+            leaveService.forEachBatch(CURSOR_BATCH_SIZE, batch -> {
+                for (LeaveRequest leave : batch) {
+                    out.write(leave.getId(), leave.getEmployeeId(), leave.getEmployeeName(),
+                            format(leave.getStartDate()), format(leave.getEndDate()), leave.getReason(), leave.getStatus());
+                }
+            });
+            return out.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String format(LocalDate date) {
+        return date != null ? date.toString() : null;
+    }
+
+    // Écrit les lignes dans un canal fichier tamponné (compressé en gzip si demandé)
+    private static class RowWriter implements AutoCloseable {
+        private final Writer writer;
+        private final Format format;
+        private final String[] columns;
+        private final ProgressListener listener;
+        private final StringBuilder line = new StringBuilder(256);
+        private long rows;
+
+        RowWriter(Path file, String[] columns, ProgressListener listener) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            if (isGzip(file)) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.format = formatOf(file);
+            this.columns = columns;
+            this.listener = listener;
+            if (format == Format.CSV) {
+                writer.write(String.join(",", columns));
+                writer.write('\n');
+            }
+        }
+
+        // Appelé depuis les consommateurs des services : les IOException sont encapsulées
+        void write(String... values) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new UncheckedIOException(new IOException("Export cancelled"));
+            }
+            line.setLength(0);
+            if (format == Format.CSV) {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsv(values[i]);
+                }
+            } else {
+                line.append('{');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendJsonString(columns[i]);
+                    line.append(':');
+                    if (values[i] == null) {
+                        line.append("null");
+                    } else {
+                        appendJsonString(values[i]);
+                    }
+                }
+                line.append('}');
+            }
+            line.append('\n');
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+            if (listener != null && rows % PROGRESS_INTERVAL == 0) {
+                listener.onProgress(rows);
+            }
+        }
+
+        long finish() throws IOException {
+            writer.flush();
+            if (listener != null) {
+                listener.onProgress(rows);
+            }
+            return rows;
+        }
+
+        private void appendCsv(String value) {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void appendJsonString(String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        line.append("\\\"");
+                        break;
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                }
+            }
+            line.append('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Bilan d'un import : lignes lues, importées, et rapport des lignes rejetées
+public class ImportResult {
+    // Au-delà, les erreurs sont seulement comptées
+    private static final int MAX_REPORTED_ERRORS = 10000;
+
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private final List<String> errors = new ArrayList<>();
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void imported(long count) {
+        rowsImported += count;
+    }
+
+    void error(long line, String message) {
+        rowsFailed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Line " + line + ": " + message);
+        }
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    // Premières erreurs rencontrées (au plus 10 000)
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    // Écrit le rapport d'erreurs dans un fichier texte
+    public void writeReport(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("Rows read: " + rowsRead + ", imported: " + rowsImported + ", rejected: " + rowsFailed);
+            out.newLine();
+            for (String error : errors) {
+                out.write(error);
+                out.newLine();
+            }
+            if (rowsFailed > errors.size()) {
+                out.write("... " + (rowsFailed - errors.size()) + " more errors not listed");
+                out.newLine();
+            }
+        }
+    }
+}
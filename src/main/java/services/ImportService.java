@@ -0,0 +1,341 @@
+package services;
+
+import model.Department;
+import model.Employee;
+import model.NamedItem;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Import en masse d'employés et de départements depuis un fichier CSV ou NDJSON
+// Lecture en flux (mémoire constante), insertions non ordonnées par lots
+public class ImportService {
+    // Taille des lots insertMany : -Dems.import.batchSize=...
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    // Intervalle (en lignes) entre deux notifications de progression
+    private static final int PROGRESS_INTERVAL = 5000;
+    // Clé ajoutée à une ligne illisible (JSON invalide)
+    private static final String PARSE_ERROR = "\u0000parseError";
+
+    // Suivi de la progression, appelé depuis le thread de l'import
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long rowsImported, long rowsFailed);
+    }
+
+    private final int batchSize;
+
+    public ImportService() {
+        this(Integer.getInteger("ems.import.batchSize", DEFAULT_BATCH_SIZE));
+    }
+
+    public ImportService(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    // Importe des employés (colonnes : name, email, position, department, hireDate)
+    // "department" accepte le nom ou l'id du département
+    public ImportResult importEmployees(Path file, ProgressListener listener) throws IOException {
+        Map<String, String> departmentIds = loadDepartmentIds();
+        EmployeeService employeeService = new EmployeeService();
+        ImportResult result = importRows(file, Repositories.employees(), listener, (row, rowResult, line) -> {
+            String name = row.get("name");
+            String email = row.get("email");
+            if (isBlank(name)) {
+                rowResult.error(line, "missing name");
+                return null;
+            }
+            if (isBlank(email) || !email.contains("@")) {
+                rowResult.error(line, "invalid email '" + (email != null ? email : "") + "'");
+                return null;
+            }
+            String departmentId = null;
+            String department = row.get("department");
+            if (!isBlank(department)) {
+                departmentId = departmentIds.get(department.trim().toLowerCase(Locale.ROOT));
+                if (departmentId == null) {
+                    rowResult.error(line, "unknown department '" + department + "'");
+                    return null;
+                }
+            }
+            LocalDate hireDate = null;
+            String hireDateText = row.get("hiredate");
+            if (!isBlank(hireDateText)) {
+                try {
+                    hireDate = LocalDate.parse(hireDateText.trim());
+                } catch (DateTimeParseException e) {
+                    rowResult.error(line, "invalid hire date '" + hireDateText + "' (expected yyyy-MM-dd)");
+                    return null;
+                }
+            }
+            return new Employee(new ObjectId().toString(), name.trim(), email.trim(),
+                    trimToNull(row.get("position")), departmentId, hireDate);
+        }, batch -> rejectDuplicateEmails(batch, employeeService));
+        // Les employés importés ne passent pas par EmployeeService.save
+        EmployeeSearchIndex.getInstance().invalidate();
+        LeaveOccupancy.getInstance().invalidate();
+        return result;
+    }
+
+    // Importe des départements (colonnes : name, description)
+    public ImportResult importDepartments(Path file, ProgressListener listener) throws IOException {
+        ImportResult result = importRows(file, Repositories.departments(), listener, (row, rowResult, line) -> {
+            String name = row.get("name");
+            if (isBlank(name)) {
+                rowResult.error(line, "missing name");
+                return null;
+            }
+            return new Department(new ObjectId().toString(), name.trim(), trimToNull(row.get("description")));
+        }, null);
+        DepartmentCache.getInstance().invalidate();
+        return result;
+    }
+
+    // Convertit une ligne en objet du modèle, ou null (erreur déjà signalée)
+    private interface RowMapper<T> {
+        T map(Map<String, String> row, ImportResult result, long line);
+    }
+
+    // Vérification d'un lot complet avant son insertion : motif de refus par position dans le lot
+    private interface BatchCheck<T> {
+        Map<Integer, String> reject(List<T> batch);
+    }
+
+    // Refuse les emails déjà utilisés (par un employé existant, ou plus haut dans le même lot) ;
+    // les lots précédents sont déjà insérés, donc vus par la recherche en base
+    private static Map<Integer, String> rejectDuplicateEmails(List<Employee> batch, EmployeeService employeeService) {
+        List<String> emails = new ArrayList<>(batch.size());
+        for (Employee emp : batch) {
+            emails.add(emp.getEmail());
+        }
+        Set<String> used = employeeService.findExistingEmails(emails);
+        Set<String> inBatch = new HashSet<>();
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            String key = emails.get(i).toLowerCase(Locale.ROOT);
+            if (used.contains(key)) {
+                rejected.put(i, "email '" + emails.get(i) + "' is already used by an employee");
+            } else if (!inBatch.add(key)) {
+                rejected.put(i, "duplicate email '" + emails.get(i) + "' in file");
+            }
+        }
+        return rejected;
+    }
+
+    // Boucle commune : lecture en flux, validation, insertion par lots ("check" facultatif)
+    private <T> ImportResult importRows(Path file, Repository<T> repository, ProgressListener listener,
+                                        RowMapper<T> mapper, BatchCheck<T> check) throws IOException {
+        ImportResult result = new ImportResult();
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        try (RowReader reader = openReader(file)) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Import cancelled");
+                }
+                result.rowRead();
+                if (row.containsKey(PARSE_ERROR)) {
+                    result.error(reader.getLine(), row.get(PARSE_ERROR));
+                    continue;
+                }
+                T item = mapper.map(row, result, reader.getLine());
+                if (item != null) {
+                    batch.add(item);
+                    batchLines.add(reader.getLine());
+                    if (batch.size() == batchSize) {
+                        insertBatch(repository, batch, batchLines, result, check);
+                    }
+                }
+                if (listener != null && result.getRowsRead() % PROGRESS_INTERVAL == 0) {
+                    listener.onProgress(result.getRowsRead(), result.getRowsImported(), result.getRowsFailed());
+                }
+            }
+        }
+        insertBatch(repository, batch, batchLines, result, check);
+        if (listener != null) {
+            listener.onProgress(result.getRowsRead(), result.getRowsImported(), result.getRowsFailed());
+        }
+        return result;
+    }
+
+    // Insère un lot (non ordonné : une ligne rejetée n'arrête pas les autres)
+    private <T> void insertBatch(Repository<T> repository, List<T> batch, List<Long> batchLines,
+                                 ImportResult result, BatchCheck<T> check) {
+        if (check != null && !batch.isEmpty()) {
+            Map<Integer, String> rejected = check.reject(batch);
+            if (!rejected.isEmpty()) {
+                List<T> kept = new ArrayList<>(batch.size());
+                List<Long> keptLines = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    if (rejected.containsKey(i)) {
+                        result.error(batchLines.get(i), rejected.get(i));
+                    } else {
+                        kept.add(batch.get(i));
+                        keptLines.add(batchLines.get(i));
+                    }
+                }
+                batch.clear();
+                batch.addAll(kept);
+                batchLines.clear();
+                batchLines.addAll(keptLines);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> errors = repository.insertAll(batch);
+        for (Map.Entry<Integer, String> error : errors.entrySet()) {
+            result.error(batchLines.get(error.getKey()), error.getValue());
+        }
+        result.imported(batch.size() - errors.size());
+        batch.clear();
+        batchLines.clear();
+    }
+
+    // Dictionnaire nom (minuscules) ou id -> id des départements, chargé une fois par import
+    private Map<String, String> loadDepartmentIds() {
+        Map<String, String> ids = new HashMap<>();
+        for (NamedItem dept : new DepartmentService().findSummaries()) {
+            ids.put(dept.getId(), dept.getId());
+            if (dept.getName() != null) {
+                ids.putIfAbsent(dept.getName().trim().toLowerCase(Locale.ROOT), dept.getId());
+            }
+        }
+        return ids;
+    }
+
+    // Choisit le format selon l'extension : .csv, sinon NDJSON (un objet JSON par ligne)
+    private RowReader openReader(Path file) throws IOException {
+        BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".csv") ? new CsvRowReader(in) : new NdjsonRowReader(in);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static String trimToNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+
+    // Lignes du fichier, clés de colonnes en minuscules
+    private interface RowReader extends Closeable {
+        Map<String, String> next() throws IOException;
+
+        long getLine();
+    }
+
+    // CSV avec ligne d'en-tête
+    private static class CsvRowReader implements RowReader {
+        private final CsvReader csv;
+        private final String[] columns;
+
+        CsvRowReader(BufferedReader in) throws IOException {
+            csv = new CsvReader(in);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IOException("Empty CSV file");
+            }
+            columns = new String[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                // Retire un éventuel BOM UTF-8
+                columns[i] = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields;
+            do {
+                fields = csv.next();
+            } while (fields != null && fields.size() == 1 && fields.get(0).trim().isEmpty());
+            if (fields == null) {
+                return null;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < columns.length && i < fields.size(); i++) {
+                row.put(columns[i], fields.get(i));
+            }
+            return row;
+        }
+
+        @Override
+        public long getLine() {
+            return csv.getRecordLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+
+    // NDJSON : un objet JSON par ligne
+    private static class NdjsonRowReader implements RowReader {
+        private final BufferedReader in;
+        private long line;
+
+        NdjsonRowReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                line++;
+            } while (text != null && text.trim().isEmpty());
+            if (text == null) {
+                return null;
+            }
+            Map<String, String> row = new HashMap<>();
+            Document doc;
+            try {
+                doc = Document.parse(text);
+            } catch (RuntimeException e) {
+                row.put(PARSE_ERROR, "invalid JSON: " + e.getMessage());
+                return row;
+            }
+            for (Map.Entry<String, Object> entry : doc.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Date) {
+                    value = ((Date) value).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+                }
+                row.put(entry.getKey().toLowerCase(Locale.ROOT), value != null ? value.toString() : null);
+            }
+            return row;
+        }
+
+        @Override
+        public long getLine() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
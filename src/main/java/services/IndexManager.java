@@ -0,0 +1,18 @@
+package services;
+
+import com.mongodb.client.MongoDatabase;
+
+// Crée au démarrage les index dont les requêtes des services ont besoin
+// (leurs plans d'exécution sont vérifiés par QueryPlanTest)
+public class IndexManager {
+    private IndexManager() {
+    }
+
+    // Crée les index déclarés par chaque service (sans effet s'ils existent déjà)
+    public static void ensureIndexes() {
+        MongoDatabase db = MongoService.getInstance().getDatabase();
+        db.getCollection("employees").createIndexes(EmployeeService.indexes());
+        db.getCollection("departments").createIndexes(DepartmentService.indexes());
+        db.getCollection("leave_requests").createIndexes(LeaveService.indexes());
+    }
+}
@@ -0,0 +1,134 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Arbre d'intervalles fermés [début, fin] (jours epoch) : arbre binaire de recherche
+// équilibré aléatoirement (treap) sur le début, chaque nœud gardant la plus grande fin
+// de son sous-arbre. Insertion et recherche d'un chevauchement en O(log n) en moyenne,
+// même si les intervalles déjà présents se chevauchent entre eux.
+public class IntervalTree<V> {
+    private static final Random PRIORITIES = new Random();
+
+    private static final class Node<V> {
+        final long start;
+        final long end;
+        final V value;
+        final int priority = PRIORITIES.nextInt();
+        long maxEnd;
+        Node<V> left;
+        Node<V> right;
+
+        Node(long start, long end, V value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+
+    // Ajoute l'intervalle [start, end]
+    public void insert(long start, long end, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end " + end + " is before start " + start);
+        }
+        root = insert(root, new Node<>(start, end, value));
+        size++;
+    }
+
+    // Valeur d'un intervalle qui chevauche [start, end], null s'il n'y en a pas
+    public V findOverlap(long start, long end) {
+        Node<V> node = root;
+        while (node != null) {
+            if (node.start <= end && start <= node.end) {
+                return node.value;
+            }
+            // Si le sous-arbre gauche peut contenir un chevauchement, il en contient forcément un :
+            // sa plus grande fin atteint "start" et tous ses débuts précèdent celui du nœud
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else if (node.start <= end) {
+                node = node.right;
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // Valeurs de tous les intervalles qui chevauchent [start, end]
+    public List<V> findOverlaps(long start, long end) {
+        List<V> values = new ArrayList<>();
+        collect(root, start, end, values);
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static <V> Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static <V> void collect(Node<V> node, long start, long end, List<V> values) {
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+        collect(node.left, start, end, values);
+        if (node.start <= end && start <= node.end) {
+            values.add(node.value);
+        }
+        if (node.start <= end) {
+            collect(node.right, start, end, values);
+        }
+    }
+
+    private static <V> Node<V> rotateRight(Node<V> node) {
+        Node<V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static <V> Node<V> rotateLeft(Node<V> node) {
+        Node<V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static <V> void update(Node<V> node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+}
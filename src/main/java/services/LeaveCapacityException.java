@@ -0,0 +1,27 @@
+package services;
+
+import java.time.LocalDate;
+
+// Refus d'approuver une demande : son département a déjà atteint sa limite d'absences ce jour-là
+public class LeaveCapacityException extends LeaveRuleException {
+    private static final long serialVersionUID = 1L;
+    private final LocalDate day;
+    private final int limit;
+
+    public LeaveCapacityException(String departmentName, LocalDate day, int limit) {
+        super((departmentName != null ? departmentName : "This department") + " already has " + limit
+                + " approved absence(s) on " + day + " (limit " + limit + ")");
+        this.day = day;
+        this.limit = limit;
+    }
+
+    // Premier jour où la limite est atteinte
+    public LocalDate getDay() {
+        return day;
+    }
+
+    // Nombre maximal de personnes absentes le même jour
+    public int getLimit() {
+        return limit;
+    }
+}
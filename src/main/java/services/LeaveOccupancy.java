@@ -0,0 +1,438 @@
+package services;
+
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Occupation des départements : nombre de personnes absentes chaque jour (pattern Singleton)
+// Les congés approuvés et en attente sont comptés par département sur un tableau de jours
+// (epoch day). Construit une seule fois par balayage (tableau de différences puis sommes
+// préfixes), puis tenu à jour par les services et par le flux de changements : vérifier
+// la limite d'absences d'un département ne lit que les jours de la demande
+public class LeaveOccupancy {
+    private static LeaveOccupancy instance;
+
+    // Compteurs journaliers d'un département, du jour "base" au jour base + length - 1
+    private static final class DayCounts {
+        private long base;
+        private int[] approved = new int[0];
+        private int[] pending = new int[0];
+
+        // Construit les compteurs par balayage : +1 au premier jour, -1 le lendemain du dernier
+        static DayCounts build(List<Counted> leaves) {
+            DayCounts counts = new DayCounts();
+            if (leaves.isEmpty()) {
+                return counts;
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (Counted leave : leaves) {
+                min = Math.min(min, leave.start);
+                max = Math.max(max, leave.end);
+            }
+            int length = (int) (max - min + 1);
+            int[] approvedDeltas = new int[length + 1];
+            int[] pendingDeltas = new int[length + 1];
+            for (Counted leave : leaves) {
+                int[] deltas = leave.approved ? approvedDeltas : pendingDeltas;
+                deltas[(int) (leave.start - min)]++;
+                deltas[(int) (leave.end - min) + 1]--;
+            }
+            counts.base = min;
+            counts.approved = new int[length];
+            counts.pending = new int[length];
+            int approvedRunning = 0;
+            int pendingRunning = 0;
+            for (int i = 0; i < length; i++) {
+                approvedRunning += approvedDeltas[i];
+                pendingRunning += pendingDeltas[i];
+                counts.approved[i] = approvedRunning;
+                counts.pending[i] = pendingRunning;
+            }
+            return counts;
+        }
+
+        // Ajoute (delta = 1) ou retire (delta = -1) une demande, jour par jour
+        void add(Counted leave, int delta) {
+            cover(leave.start, leave.end);
+            int[] days = leave.approved ? approved : pending;
+            for (int i = (int) (leave.start - base); i <= (int) (leave.end - base); i++) {
+                days[i] += delta;
+            }
+        }
+
+        // Nombre d'absences approuvées (et en attente si demandé) le jour donné
+        int get(long day, boolean withPending) {
+            if (day < base || day >= base + approved.length) {
+                return 0;
+            }
+            int i = (int) (day - base);
+            return withPending ? approved[i] + pending[i] : approved[i];
+        }
+
+        // Agrandit les tableaux pour couvrir [start, end]
+        private void cover(long start, long end) {
+            if (approved.length == 0) {
+                base = start;
+                approved = new int[(int) (end - start + 1)];
+                pending = new int[approved.length];
+                return;
+            }
+            long from = Math.min(base, start);
+            long to = Math.max(base + approved.length - 1, end);
+            if (from == base && to == base + approved.length - 1) {
+                return;
+            }
+            approved = shift(approved, (int) (base - from), (int) (to - from + 1));
+            pending = shift(pending, (int) (base - from), (int) (to - from + 1));
+            base = from;
+        }
+
+        private static int[] shift(int[] days, int offset, int length) {
+            int[] copy = new int[length];
+            System.arraycopy(days, 0, copy, offset, days.length);
+            return copy;
+        }
+    }
+
+    // Contribution d'une demande comptée (jours en epoch day, bornes incluses)
+    private static final class Counted {
+        final String employeeId;
+        final long start;
+        final long end;
+        String departmentId;
+        boolean approved;
+
+        Counted(String employeeId, long start, long end, String departmentId, boolean approved) {
+            this.employeeId = employeeId;
+            this.start = start;
+            this.end = end;
+            this.departmentId = departmentId;
+            this.approved = approved;
+        }
+    }
+
+    // Pic d'absences d'un département sur une période, la demande consultée exclue
+    public static class Peak {
+        private final String departmentId;
+        private final int approved;
+        private final int withPending;
+        private final Integer limit;
+
+        Peak(String departmentId, int approved, int withPending, Integer limit) {
+            this.departmentId = departmentId;
+            this.approved = approved;
+            this.withPending = withPending;
+            this.limit = limit;
+        }
+
+        public String getDepartmentId() {
+            return departmentId;
+        }
+
+        // Maximum de congés approuvés sur un même jour
+        public int getApproved() {
+            return approved;
+        }
+
+        // Maximum de congés approuvés ou en attente sur un même jour
+        public int getWithPending() {
+            return withPending;
+        }
+
+        // Limite du département, null s'il n'en a pas
+        public Integer getLimit() {
+            return limit;
+        }
+    }
+
+    private final Map<String, DayCounts> departments = new HashMap<>();
+    private final Map<String, Counted> leaves = new HashMap<>();
+    private final Map<String, Set<String>> leavesByEmployee = new HashMap<>();
+    private final Map<String, String> employeeDepartments = new HashMap<>();
+    private final Map<String, Integer> limits = new HashMap<>();
+    private volatile boolean loaded;
+    private boolean listening;
+
+    private LeaveOccupancy() {
+    }
+
+    // Retourne l'instance unique du moteur d'occupation (Singleton)
+    public static synchronized LeaveOccupancy getInstance() {
+        if (instance == null) {
+            instance = new LeaveOccupancy();
+        }
+        return instance;
+    }
+
+    // Construit les compteurs s'ils ne l'ont pas encore été
+    public void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    // Relit employés, limites des départements et congés, puis reconstruit tous les compteurs
+    public synchronized void reload() {
+        Metrics.time("LeaveOccupancy.reload", () -> {
+            loaded = false;
+            employeeDepartments.clear();
+            Repositories.employees().forEach(1000, employee -> {
+                if (employee.getDepartmentId() != null) {
+                    employeeDepartments.put(employee.getId(), employee.getDepartmentId());
+                }
+            });
+            limits.clear();
+            Repositories.departments().forEach(1000, department -> {
+                if (department.getMaxConcurrentAbsences() != null) {
+                    limits.put(department.getId(), department.getMaxConcurrentAbsences());
+                }
+            });
+            leaves.clear();
+            leavesByEmployee.clear();
+            Map<String, List<Counted>> byDepartment = new HashMap<>();
+            Repositories.leaves().forEach(1000, leave -> {
+                Counted counted = toCounted(leave);
+                if (counted != null) {
+                    track(leave.getId(), counted);
+                    if (counted.departmentId != null) {
+                        byDepartment.computeIfAbsent(counted.departmentId, key -> new ArrayList<>()).add(counted);
+                    }
+                }
+            });
+            departments.clear();
+            byDepartment.forEach((departmentId, counted) -> departments.put(departmentId, DayCounts.build(counted)));
+            loaded = true;
+        });
+        // Suit les modifications faites par les autres clients
+        if (!listening) {
+            listening = true;
+            ChangeStreamService changes = ChangeStreamService.getInstance();
+            changes.subscribe(LeaveRequest.class, event -> {
+                if (event.getType() == ChangeEvent.Type.RELOAD) {
+                    invalidate();
+                } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                    leaveDeleted(event.getId());
+                } else if (event.getDocument() != null) {
+                    leaveSaved(event.getDocument());
+                }
+            });
+            changes.subscribe(Employee.class, event -> {
+                if (event.getType() == ChangeEvent.Type.RELOAD) {
+                    invalidate();
+                } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                    employeeDeleted(event.getId());
+                } else if (event.getDocument() != null) {
+                    employeeSaved(event.getDocument());
+                }
+            });
+            changes.subscribe(Department.class, event -> {
+                if (event.getType() == ChangeEvent.Type.RELOAD) {
+                    invalidate();
+                } else if (event.getType() == ChangeEvent.Type.DELETE) {
+                    departmentDeleted(event.getId());
+                } else if (event.getDocument() != null) {
+                    departmentSaved(event.getDocument());
+                }
+            });
+        }
+    }
+
+    // Invalide les compteurs : ils seront reconstruits au prochain ensureLoaded()
+    public void invalidate() {
+        loaded = false;
+    }
+
+    // Département de l'employé, null s'il n'en a pas
+    public synchronized String departmentOf(String employeeId) {
+        return employeeDepartments.get(employeeId);
+    }
+
+    // Limite d'absences simultanées du département, null s'il n'en a pas
+    public synchronized Integer getLimit(String departmentId) {
+        return departmentId != null ? limits.get(departmentId) : null;
+    }
+
+    // Pic d'absences du département de l'employé sur la période de la demande, elle exclue
+    public synchronized Peak peak(LeaveRequest leave) {
+        String departmentId = employeeDepartments.get(leave.getEmployeeId());
+        if (departmentId == null || !hasPeriod(leave)) {
+            return new Peak(departmentId, 0, 0, departmentId != null ? limits.get(departmentId) : null);
+        }
+        // La demande elle-même, si elle est comptée, couvre tous les jours de la période
+        Counted self = leaves.get(leave.getId());
+        boolean counted = self != null && departmentId.equals(self.departmentId);
+        int selfApproved = counted && self.approved ? 1 : 0;
+        int selfTotal = counted ? 1 : 0;
+        DayCounts counts = departments.get(departmentId);
+        int approved = 0;
+        int withPending = 0;
+        if (counts != null) {
+            for (long day = leave.getStartDate().toEpochDay(); day <= leave.getEndDate().toEpochDay(); day++) {
+                approved = Math.max(approved, counts.get(day, false) - selfApproved);
+                withPending = Math.max(withPending, counts.get(day, true) - selfTotal);
+            }
+        }
+        return new Peak(departmentId, approved, withPending, limits.get(departmentId));
+    }
+
+    // Compte la demande comme approuvée si son département reste sous sa limite d'absences
+    // Retourne null si c'est le cas, sinon le premier jour où la limite est déjà atteinte
+    // (vérification et réservation atomiques : deux approbations simultanées ne la dépassent pas)
+    public synchronized LocalDate tryApprove(LeaveRequest leave) {
+        ensureLoaded();
+        Counted counted = toCounted(leave, "APPROVED");
+        if (counted == null) {
+            return null;
+        }
+        Integer limit = counted.departmentId != null ? limits.get(counted.departmentId) : null;
+        Counted previous = leaves.get(leave.getId());
+        boolean alreadyApproved = previous != null && previous.approved
+                && Objects.equals(counted.departmentId, previous.departmentId);
+        DayCounts counts = departments.get(counted.departmentId);
+        if (limit != null && counts != null) {
+            int self = alreadyApproved ? 1 : 0;
+            for (long day = counted.start; day <= counted.end; day++) {
+                if (counts.get(day, false) - self >= limit) {
+                    return LocalDate.ofEpochDay(day);
+                }
+            }
+        }
+        untrack(leave.getId());
+        track(leave.getId(), counted);
+        return null;
+    }
+
+    // Met à jour les compteurs après l'enregistrement ou le changement de statut d'une demande
+    public synchronized void leaveSaved(LeaveRequest leave) {
+        if (!loaded || leave.getId() == null) {
+            return;
+        }
+        untrack(leave.getId());
+        Counted counted = toCounted(leave);
+        if (counted != null) {
+            track(leave.getId(), counted);
+        }
+    }
+
+    // Change le statut d'une demande déjà comptée (traitements groupés, qui ne relisent pas les dates)
+    public synchronized void statusChanged(String id, String status) {
+        Counted counted = leaves.get(id);
+        if (!loaded || counted == null) {
+            return;
+        }
+        untrack(id);
+        if ("APPROVED".equals(status) || "PENDING".equals(status)) {
+            counted.approved = "APPROVED".equals(status);
+            track(id, counted);
+        }
+    }
+
+    // Retire une demande supprimée
+    public synchronized void leaveDeleted(String id) {
+        if (loaded) {
+            untrack(id);
+        }
+    }
+
+    // Déplace les congés d'un employé qui change de département
+    public synchronized void employeeSaved(Employee employee) {
+        if (!loaded || employee.getId() == null) {
+            return;
+        }
+        String previous = employee.getDepartmentId() != null
+                ? employeeDepartments.put(employee.getId(), employee.getDepartmentId())
+                : employeeDepartments.remove(employee.getId());
+        if (Objects.equals(previous, employee.getDepartmentId())) {
+            return;
+        }
+        for (String id : new ArrayList<>(leavesByEmployee.getOrDefault(employee.getId(), new HashSet<>()))) {
+            Counted counted = leaves.get(id);
+            untrack(id);
+            counted.departmentId = employee.getDepartmentId();
+            track(id, counted);
+        }
+    }
+
+    // Un employé supprimé ne compte plus dans les absences de son département
+    public synchronized void employeeDeleted(String id) {
+        if (!loaded) {
+            return;
+        }
+        Employee removed = new Employee();
+        removed.setId(id);
+        employeeSaved(removed);
+    }
+
+    // Met à jour la limite d'absences d'un département
+    public synchronized void departmentSaved(Department department) {
+        if (department.getId() == null) {
+            return;
+        }
+        if (department.getMaxConcurrentAbsences() != null) {
+            limits.put(department.getId(), department.getMaxConcurrentAbsences());
+        } else {
+            limits.remove(department.getId());
+        }
+    }
+
+    // Oublie la limite d'un département supprimé
+    public synchronized void departmentDeleted(String id) {
+        limits.remove(id);
+    }
+
+    // Contribution d'une demande en attente ou approuvée, null si elle ne compte pas
+    private Counted toCounted(LeaveRequest leave) {
+        return toCounted(leave, leave.getStatus());
+    }
+
+    // Contribution de la demande si elle avait ce statut
+    private Counted toCounted(LeaveRequest leave, String status) {
+        boolean approved = "APPROVED".equals(status);
+        if (!approved && !"PENDING".equals(status) || !hasPeriod(leave)) {
+            return null;
+        }
+        return new Counted(leave.getEmployeeId(), leave.getStartDate().toEpochDay(),
+                leave.getEndDate().toEpochDay(), employeeDepartments.get(leave.getEmployeeId()), approved);
+    }
+
+    private void track(String id, Counted counted) {
+        leaves.put(id, counted);
+        leavesByEmployee.computeIfAbsent(counted.employeeId, key -> new HashSet<>()).add(id);
+        if (counted.departmentId != null && loaded) {
+            departments.computeIfAbsent(counted.departmentId, key -> new DayCounts()).add(counted, 1);
+        }
+    }
+
+    private void untrack(String id) {
+        Counted counted = leaves.remove(id);
+        if (counted == null) {
+            return;
+        }
+        Set<String> ids = leavesByEmployee.get(counted.employeeId);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                leavesByEmployee.remove(counted.employeeId);
+            }
+        }
+        if (counted.departmentId != null) {
+            departments.get(counted.departmentId).add(counted, -1);
+        }
+    }
+
+    // Vrai si la demande a un employé et une période valide
+    private static boolean hasPeriod(LeaveRequest leave) {
+        return leave.getEmployeeId() != null && leave.getStartDate() != null && leave.getEndDate() != null
+                && !leave.getEndDate().isBefore(leave.getStartDate());
+    }
+}
@@ -0,0 +1,21 @@
+package services;
+
+import model.LeaveRequest;
+
+// Refus d'enregistrer ou d'approuver une demande qui chevauche un autre congé du même employé
+public class LeaveOverlapException extends LeaveRuleException {
+    private static final long serialVersionUID = 1L;
+    // LeaveRequest n'est pas sérialisable : le conflit ne suit pas l'exception
+    private final transient LeaveRequest conflict;
+
+    public LeaveOverlapException(LeaveRequest conflict) {
+        super("This employee already has leave from " + conflict.getStartDate() + " to " + conflict.getEndDate()
+                + (conflict.getStatus() != null ? " (" + conflict.getStatus().toLowerCase() + ")" : ""));
+        this.conflict = conflict;
+    }
+
+    // Congé existant en conflit
+    public LeaveRequest getConflict() {
+        return conflict;
+    }
+}
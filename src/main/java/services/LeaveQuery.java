@@ -0,0 +1,108 @@
+package services;
+
+import model.LeaveRequest;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Filtres de la liste des demandes de congé (statut, employé, fenêtre de dates), tous facultatifs,
+// et tri par colonne ; traduits en critères exécutés par le stockage : seules les lignes retenues sont lues
+public class LeaveQuery {
+    // Champs triables par la base (chacun a son index (champ, _id), voir LeaveService.indexes)
+    private static final Map<String, Function<LeaveRequest, Object>> SORT_KEYS = Map.of(
+            "startDate", LeaveRequest::getStartDate,
+            "endDate", LeaveRequest::getEndDate,
+            "status", LeaveRequest::getStatus);
+
+    private String status;
+    private String employeeId;
+    private LocalDate from;
+    private LocalDate to;
+    private String sortField;
+    private boolean descending;
+
+    // Demandes ayant ce statut (null = tous)
+    public LeaveQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    // Demandes de cet employé (null = tous)
+    public LeaveQuery employee(String employeeId) {
+        this.employeeId = employeeId;
+        return this;
+    }
+
+    // Demandes dont la période chevauche [from, to], bornes incluses (null = pas de borne)
+    public LeaveQuery during(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    // Trie par ce champ : startDate, endDate ou status (null = ordre de création)
+    public LeaveQuery sortBy(String field, boolean descending) {
+        if (field != null && !SORT_KEYS.containsKey(field)) {
+            throw new IllegalArgumentException("Unsupported sort field " + field);
+        }
+        this.sortField = field;
+        this.descending = descending;
+        return this;
+    }
+
+    public boolean isSorted() {
+        return sortField != null;
+    }
+
+    // Vrai si aucun filtre n'est actif (le tri n'est pas un filtre)
+    public boolean isEmpty() {
+        return status == null && employeeId == null && from == null && to == null;
+    }
+
+    // Même test en mémoire (éléments reçus du flux de changements)
+    public boolean matches(LeaveRequest leave) {
+        if (status != null && !status.equals(leave.getStatus())) {
+            return false;
+        }
+        if (employeeId != null && !employeeId.equals(leave.getEmployeeId())) {
+            return false;
+        }
+        if (to != null && (leave.getStartDate() == null || leave.getStartDate().isAfter(to))) {
+            return false;
+        }
+        return from == null || leave.getEndDate() != null && !leave.getEndDate().isBefore(from);
+    }
+
+    // Vrai si la modification peut déplacer la demande dans l'ordre de tri
+    public boolean movesInSort(LeaveRequest before, LeaveRequest after) {
+        return sortField != null && !Objects.equals(sortKey(before), sortKey(after));
+    }
+
+    // Valeur du champ de tri (point de départ des pages suivantes), null sans tri
+    Object sortKey(LeaveRequest leave) {
+        return sortField != null ? SORT_KEYS.get(sortField).apply(leave) : null;
+    }
+
+    // Fenêtre de dates : début avant la fin de la fenêtre et fin après son début (index startDate, endDate)
+    Criteria toCriteria() {
+        Criteria criteria = new Criteria();
+        if (status != null) {
+            criteria.eq("status", status);
+        }
+        if (employeeId != null) {
+            criteria.eq("employeeId", employeeId);
+        }
+        if (to != null) {
+            criteria.onOrBefore("startDate", to);
+        }
+        if (from != null) {
+            criteria.onOrAfter("endDate", from);
+        }
+        if (sortField != null) {
+            criteria.sortBy(sortField, descending, false);
+        }
+        return criteria;
+    }
+}
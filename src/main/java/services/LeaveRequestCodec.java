@@ -0,0 +1,63 @@
+package services;
+
+import model.LeaveRequest;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+// Codec BSON <-> LeaveRequest (collection "leave_requests")
+// Le nom de l'employé n'est pas stocké : il est résolu par LeaveService
+public class LeaveRequestCodec implements Codec<LeaveRequest> {
+
+    @Override
+    public void encode(BsonWriter writer, LeaveRequest leave, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        ModelCodecProvider.writeId(writer, leave.getId());
+        ModelCodecProvider.writeString(writer, "employeeId", leave.getEmployeeId());
+        ModelCodecProvider.writeDate(writer, "startDate", leave.getStartDate());
+        ModelCodecProvider.writeDate(writer, "endDate", leave.getEndDate());
+        ModelCodecProvider.writeString(writer, "reason", leave.getReason());
+        writer.writeString("status", leave.getStatus() != null ? leave.getStatus() : "PENDING");
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public LeaveRequest decode(BsonReader reader, DecoderContext decoderContext) {
+        LeaveRequest leave = new LeaveRequest();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    leave.setId(ModelCodecProvider.readId(reader));
+                    break;
+                case "employeeId":
+                    leave.setEmployeeId(ModelCodecProvider.readString(reader));
+                    break;
+                case "startDate":
+                    leave.setStartDate(ModelCodecProvider.readDate(reader));
+                    break;
+                case "endDate":
+                    leave.setEndDate(ModelCodecProvider.readDate(reader));
+                    break;
+                case "reason":
+                    leave.setReason(ModelCodecProvider.readString(reader));
+                    break;
+                case "status":
+                    leave.setStatus(ModelCodecProvider.readString(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return leave;
+    }
+
+    @Override
+    public Class<LeaveRequest> getEncoderClass() {
+        return LeaveRequest.class;
+    }
+}
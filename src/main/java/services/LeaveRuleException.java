@@ -0,0 +1,11 @@
+package services;
+
+// Demande de congé refusée par une règle métier (chevauchement, limite d'absences...)
+// Le message est destiné à l'utilisateur
+public class LeaveRuleException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public LeaveRuleException(String message) {
+        super(message);
+    }
+}
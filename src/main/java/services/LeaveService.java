@@ -1,130 +1,432 @@
 package services;
 
 import model.LeaveRequest;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import org.bson.types.ObjectId;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
-// Service pour gérer les demandes de congé dans la base de données
+// Service pour gérer les demandes de congé (MongoDB ou stockage embarqué, voir Repositories)
+// Les documents sont décodés directement en LeaveRequest par LeaveRequestCodec
 public class LeaveService {
-    private MongoCollection<Document> collection;
+    // Nombre de demandes dont on résout les noms d'employés en une seule requête
+    private static final int NAME_BATCH_SIZE = 500;
+    // Champs affichés dans le tableau (seuls champs lus pour les pages filtrées)
+    private static final String[] TABLE_FIELDS = {"employeeId", "startDate", "endDate", "reason", "status"};
+
+    private Repository<LeaveRequest> repository;
     private EmployeeService employeeService;
+    private LeaveOccupancy occupancy;
 
     public LeaveService() {
-        MongoDatabase db = MongoService.getInstance().getDatabase();
-        this.collection = db.getCollection("leave_requests");
+        this.repository = Repositories.leaves();
         this.employeeService = new EmployeeService();
+        this.occupancy = LeaveOccupancy.getInstance();
+    }
+
+    // Index nécessaires aux requêtes de ce service (créés par IndexManager)
+    static List<IndexModel> indexes() {
+        return Arrays.asList(
+            // Demandes d'un employé, par période
+            new IndexModel(Indexes.ascending("employeeId", "startDate", "endDate")),
+            // Filtre par statut, pages triées par _id, comptage par statut
+            new IndexModel(Indexes.ascending("status", "_id")),
+            // Recherche par fenêtre de dates
+            new IndexModel(Indexes.ascending("startDate", "endDate")),
+            // Tri du tableau par date de début ou de fin
+            new IndexModel(Indexes.ascending("startDate", "_id")),
+            new IndexModel(Indexes.ascending("endDate", "_id")),
+            // File d'attente des demandes en attente (index partiel, seulement les PENDING)
+            new IndexModel(Indexes.ascending("startDate"), new IndexOptions()
+                    .name("pending_by_startDate")
+                    .partialFilterExpression(Filters.eq("status", "PENDING")))
+        );
     }
 
     // Sauvegarde une demande de congé (ajout ou modification)
     public void save(LeaveRequest leaveRequest) {
-        Document doc = new Document();
-        if (leaveRequest.getId() != null && !leaveRequest.getId().isEmpty()) {
-            doc.append("_id", new ObjectId(leaveRequest.getId()));
-        }
-        doc.append("employeeId", leaveRequest.getEmployeeId())
-           .append("startDate", convertToDate(leaveRequest.getStartDate()))
-           .append("endDate", convertToDate(leaveRequest.getEndDate()))
-           .append("reason", leaveRequest.getReason())
-           .append("status", leaveRequest.getStatus() != null ? leaveRequest.getStatus() : "PENDING");
-
-        // Si c'est nouveau, on insère, sinon on met à jour
-        if (leaveRequest.getId() == null || leaveRequest.getId().isEmpty()) {
-            collection.insertOne(doc);
-            leaveRequest.setId(doc.getObjectId("_id").toString());
-        } else {
-            collection.replaceOne(new Document("_id", new ObjectId(leaveRequest.getId())), doc);
-        }
-        
-        // Récupérer le nom de l'employé pour l'affichage
-        if (leaveRequest.getEmployeeId() != null) {
-            var employee = employeeService.findById(leaveRequest.getEmployeeId());
-            if (employee != null) {
-                leaveRequest.setEmployeeName(employee.getName());
+        Metrics.time("LeaveService.save", () -> {
+            if (leaveRequest.getStatus() == null) {
+                leaveRequest.setStatus("PENDING");
             }
-        }
+            // Pas deux congés en attente ou approuvés sur les mêmes jours pour un employé
+            if (!"REJECTED".equals(leaveRequest.getStatus())) {
+                List<LeaveRequest> overlaps = findOverlaps(leaveRequest);
+                if (!overlaps.isEmpty()) {
+                    throw new LeaveOverlapException(overlaps.get(0));
+                }
+            }
+
+            // Si c'est nouveau, on insère, sinon on met à jour
+            if (leaveRequest.getId() == null || leaveRequest.getId().isEmpty()) {
+                leaveRequest.setId(new ObjectId().toString());
+                repository.insert(leaveRequest);
+            } else {
+                repository.replace(leaveRequest);
+            }
+            occupancy.leaveSaved(leaveRequest);
+
+            // Récupérer le nom de l'employé pour l'affichage (sauf s'il est déjà connu)
+            if (leaveRequest.getEmployeeName() == null) {
+                resolveEmployeeNames(Collections.singletonList(leaveRequest));
+            }
+        });
     }
 
     // Récupère toutes les demandes de congé
     public List<LeaveRequest> findAll() {
-        List<LeaveRequest> leaves = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            LeaveRequest leave = mapToLeaveRequest(doc);
-            if (leave.getEmployeeId() != null) {
-                var employee = employeeService.findById(leave.getEmployeeId());
-                if (employee != null) {
-                    leave.setEmployeeName(employee.getName());
+        return Metrics.time("LeaveService.findAll", () -> {
+            List<LeaveRequest> leaves = new ArrayList<>();
+            forEachBatch(NAME_BATCH_SIZE, leaves::addAll);
+            return leaves;
+        });
+    }
+
+    // Parcourt toutes les demandes par lots, noms d'employés résolus, sans tout garder en mémoire
+    // Le lot passé au consommateur est réutilisé : il ne doit pas être conservé
+    public void forEachBatch(int batchSize, Consumer<List<LeaveRequest>> consumer) {
+        Metrics.time("LeaveService.forEachBatch", () -> {
+            List<LeaveRequest> batch = new ArrayList<>(batchSize);
+            repository.forEach(batchSize, leave -> {
+                batch.add(leave);
+                if (batch.size() == batchSize) {
+                    resolveEmployeeNames(batch);
+                    consumer.accept(batch);
+                    batch.clear();
                 }
+            });
+            if (!batch.isEmpty()) {
+                resolveEmployeeNames(batch);
+                consumer.accept(batch);
             }
-            leaves.add(leave);
-        }
-        return leaves;
+        });
+    }
+
+    // Récupère une page de demandes triées par _id (pagination keyset à partir de "from" inclus)
+    public List<LeaveRequest> findPage(LeaveRequest from, int skip, int limit) {
+        return Metrics.time("LeaveService.findPage", () -> {
+            List<LeaveRequest> leaves = repository.findPage(from != null ? from.getId() : null, skip, limit);
+            resolveEmployeeNames(leaves);
+            return leaves;
+        });
+    }
+
+    // Récupère une page de demandes vérifiant les filtres, dans l'ordre de tri de la requête (à défaut par _id)
+    // (pagination keyset à partir de "from" inclus)
+    public List<LeaveRequest> findPage(LeaveQuery query, LeaveRequest from, int skip, int limit) {
+        return Metrics.time("LeaveService.findPageFiltered", () -> {
+            List<LeaveRequest> leaves = repository.findPage(query.toCriteria(), from != null ? query.sortKey(from) : null,
+                    from != null ? from.getId() : null, skip, limit, TABLE_FIELDS);
+            resolveEmployeeNames(leaves);
+            return leaves;
+        });
+    }
+
+    // Compte les demandes vérifiant les filtres (sans filtre : métadonnées de la collection)
+    // avec l'instant du comptage (voir CountResult)
+    public CountResult count(LeaveQuery query) {
+        return Metrics.time("LeaveService.countFiltered", () -> repository.count(query.toCriteria()));
+    }
+
+    // Compte les demandes (métadonnées de la collection, sans parcours)
+    public long count() {
+        return Metrics.time("LeaveService.count", () -> repository.count());
+    }
+
+    // Compte les demandes par statut (un seul $group côté serveur avec MongoDB)
+    public Map<String, Long> countByStatus() {
+        return Metrics.time("LeaveService.countByStatus", () -> repository.countBy("status"));
     }
 
     // Trouve une demande de congé par son ID
     public LeaveRequest findById(String id) {
-        Document doc = collection.find(new Document("_id", new ObjectId(id))).first();
-        if (doc != null) {
-            LeaveRequest leave = mapToLeaveRequest(doc);
-            if (leave.getEmployeeId() != null) {
-                var employee = employeeService.findById(leave.getEmployeeId());
-                if (employee != null) {
-                    leave.setEmployeeName(employee.getName());
-                }
+        return Metrics.time("LeaveService.findById", () -> {
+            LeaveRequest leave = repository.findById(id);
+            if (leave != null) {
+                resolveEmployeeNames(Collections.singletonList(leave));
             }
             return leave;
-        }
-        return null;
+        });
     }
 
     // Supprime une demande de congé
     public void delete(String id) {
-        collection.deleteOne(new Document("_id", new ObjectId(id)));
+        Metrics.time("LeaveService.delete", () -> {
+            repository.delete(id);
+            occupancy.leaveDeleted(id);
+        });
     }
 
     // Met à jour le statut d'une demande (APPROVED, REJECTED, etc.)
-    public void updateStatus(String id, String status) {
-        collection.updateOne(
-            new Document("_id", new ObjectId(id)),
-            new Document("$set", new Document("status", status))
-        );
+    // Retourne la demande modifiée (sans le nom de l'employé), null si elle n'existe plus
+    // Une approbation qui chevauche un autre congé approuvé lève LeaveOverlapException,
+    // une approbation au-delà de la limite d'absences du département LeaveCapacityException
+    public LeaveRequest updateStatus(String id, String status) {
+        return Metrics.time("LeaveService.updateStatus", () -> {
+            if ("APPROVED".equals(status)) {
+                LeaveRequest leave = repository.findById(id);
+                if (leave == null) {
+                    return null;
+                }
+                for (LeaveRequest other : findOverlaps(leave)) {
+                    if ("APPROVED".equals(other.getStatus())) {
+                        throw new LeaveOverlapException(other);
+                    }
+                }
+                reserveCapacity(leave);
+            }
+            LeaveRequest updated;
+            try {
+                updated = repository.update(id, "status", status);
+            } catch (RuntimeException e) {
+                // La place réservée ne correspond plus à la base : les compteurs seront reconstruits
+                occupancy.invalidate();
+                throw e;
+            }
+            if (updated == null) {
+                occupancy.leaveDeleted(id);
+            } else {
+                occupancy.leaveSaved(updated);
+            }
+            return updated;
+        });
     }
 
-    // Convertit un Document MongoDB en objet LeaveRequest
-    private LeaveRequest mapToLeaveRequest(Document doc) {
-        LeaveRequest leave = new LeaveRequest();
-        leave.setId(doc.getObjectId("_id").toString());
-        leave.setEmployeeId(doc.getString("employeeId"));
-        Date startDate = doc.getDate("startDate");
-        if (startDate != null) {
-            leave.setStartDate(convertToLocalDate(startDate));
+    // Réserve la place de la demande dans son département, ou lève LeaveCapacityException
+    private void reserveCapacity(LeaveRequest leave) {
+        LocalDate full = occupancy.tryApprove(leave);
+        if (full != null) {
+            String departmentId = occupancy.departmentOf(leave.getEmployeeId());
+            DepartmentCache.getInstance().ensureLoaded();
+            throw new LeaveCapacityException(DepartmentCache.getInstance().getName(departmentId), full,
+                    occupancy.getLimit(departmentId));
         }
-        Date endDate = doc.getDate("endDate");
-        if (endDate != null) {
-            leave.setEndDate(convertToLocalDate(endDate));
+    }
+
+    // Congés en attente ou approuvés du même employé qui chevauchent cette demande (elle exclue)
+    // Requête d'intervalle sur l'index (employeeId, startDate, endDate)
+    public List<LeaveRequest> findOverlaps(LeaveRequest leave) {
+        return Metrics.time("LeaveService.findOverlaps", () -> {
+            List<LeaveRequest> overlaps = new ArrayList<>();
+            if (leave.getEmployeeId() == null || leave.getStartDate() == null || leave.getEndDate() == null) {
+                return overlaps;
+            }
+            for (LeaveRequest other : repository.findOverlapping("employeeId",
+                    Collections.singletonList(leave.getEmployeeId()), "startDate", "endDate",
+                    leave.getStartDate(), leave.getEndDate())) {
+                if (!other.getId().equals(leave.getId()) && !"REJECTED".equals(other.getStatus())) {
+                    overlaps.add(other);
+                }
+            }
+            return overlaps;
+        });
+    }
+
+    // Change le statut de plusieurs demandes EN ATTENTE en une seule écriture
+    // Les demandes qui ne sont plus PENDING ne sont pas touchées ; à l'approbation, celles qui
+    // chevauchent un congé approuvé (ou une autre demande approuvée du même lot) sont ignorées,
+    // comme celles qui dépasseraient la limite d'absences de leur département
+    public BulkResult updateStatuses(List<String> ids, String status) {
+        return Metrics.time("LeaveService.updateStatuses", () -> {
+            BulkResult result = new BulkResult();
+            boolean approving = "APPROVED".equals(status);
+            // Les dates ne sont lues que pour vérifier les chevauchements
+            Map<String, LeaveRequest> current = new HashMap<>();
+            for (LeaveRequest leave : approving ? repository.findByIds(ids) : repository.findByIds(ids, "status")) {
+                current.put(leave.getId(), leave);
+            }
+            List<LeaveRequest> candidates = new ArrayList<>();
+            for (String id : ids) {
+                LeaveRequest leave = current.get(id);
+                if (leave == null) {
+                    result.put(id, BulkResult.Outcome.NOT_FOUND);
+                } else if (!"PENDING".equals(leave.getStatus())) {
+                    result.put(id, BulkResult.Outcome.NOT_PENDING);
+                } else {
+                    candidates.add(leave);
+                    result.put(id, BulkResult.Outcome.DONE);
+                }
+            }
+            List<String> pending = approving
+                    ? withinCapacity(candidates, withoutOverlaps(candidates, result), result)
+                    : idsOf(candidates);
+            if (pending.isEmpty()) {
+                return result;
+            }
+            long modified;
+            try {
+                modified = repository.updateAll(pending, "status", "PENDING", status);
+            } catch (RuntimeException e) {
+                occupancy.invalidate();
+                throw e;
+            }
+            // Si un autre client en a traité certaines entre-temps, on relit leur statut
+            Map<String, String> after = modified < pending.size() ? findStatuses(pending) : null;
+            for (String id : pending) {
+                String actual = after != null ? after.get(id) : status;
+                if (actual == null) {
+                    result.put(id, BulkResult.Outcome.NOT_FOUND);
+                    occupancy.leaveDeleted(id);
+                } else {
+                    if (!status.equals(actual)) {
+                        result.put(id, BulkResult.Outcome.NOT_PENDING);
+                    }
+                    occupancy.statusChanged(id, actual);
+                }
+            }
+            return result;
+        });
+    }
+
+    // Supprime plusieurs demandes en une seule écriture
+    public BulkResult deleteAll(List<String> ids) {
+        return Metrics.time("LeaveService.deleteAll", () -> {
+            BulkResult result = new BulkResult();
+            Map<String, String> current = findStatuses(ids);
+            List<String> existing = new ArrayList<>();
+            for (String id : ids) {
+                if (current.containsKey(id)) {
+                    existing.add(id);
+                    result.put(id, BulkResult.Outcome.DONE);
+                } else {
+                    result.put(id, BulkResult.Outcome.NOT_FOUND);
+                }
+            }
+            if (!existing.isEmpty()) {
+                repository.deleteAll(existing);
+                existing.forEach(occupancy::leaveDeleted);
+            }
+            return result;
+        });
+    }
+
+    // Retire du lot à approuver les demandes qui chevauchent un congé approuvé du même employé
+    // Un arbre d'intervalles par employé (congés approuvés, puis demandes acceptées du lot) :
+    // chaque vérification est en O(log n), sans parcourir tous les congés
+    private List<String> withoutOverlaps(List<LeaveRequest> candidates, BulkResult result) {
+        Map<String, IntervalTree<String>> approved = approvedIntervals(candidates);
+        List<String> accepted = new ArrayList<>();
+        for (LeaveRequest leave : candidates) {
+            if (!hasPeriod(leave)) {
+                accepted.add(leave.getId());
+                continue;
+            }
+            IntervalTree<String> tree = approved.computeIfAbsent(leave.getEmployeeId(), key -> new IntervalTree<>());
+            long start = leave.getStartDate().toEpochDay();
+            long end = leave.getEndDate().toEpochDay();
+            if (tree.findOverlap(start, end) != null) {
+                result.put(leave.getId(), BulkResult.Outcome.OVERLAP);
+            } else {
+                tree.insert(start, end, leave.getId());
+                accepted.add(leave.getId());
+            }
         }
-        leave.setReason(doc.getString("reason"));
-        leave.setStatus(doc.getString("status"));
-        return leave;
+        return accepted;
     }
 
-    // Convertit LocalDate en Date pour MongoDB
-    private Date convertToDate(LocalDate localDate) {
-        if (localDate == null) return null;
-        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    // Réserve la place des demandes acceptées dans leur département, dans l'ordre du lot ;
+    // celles qui dépasseraient la limite d'absences sont ignorées
+    private List<String> withinCapacity(List<LeaveRequest> candidates, List<String> accepted, BulkResult result) {
+        Set<String> acceptedIds = new HashSet<>(accepted);
+        List<String> reserved = new ArrayList<>();
+        for (LeaveRequest leave : candidates) {
+            if (!acceptedIds.contains(leave.getId())) {
+                continue;
+            }
+            if (occupancy.tryApprove(leave) != null) {
+                result.put(leave.getId(), BulkResult.Outcome.OVER_CAPACITY);
+            } else {
+                reserved.add(leave.getId());
+            }
+        }
+        return reserved;
     }
 
-    // Convertit Date en LocalDate
-    private LocalDate convertToLocalDate(Date date) {
-        if (date == null) return null;
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    // Congés approuvés des employés concernés, sur la période couverte par les demandes (une requête)
+    private Map<String, IntervalTree<String>> approvedIntervals(List<LeaveRequest> leaves) {
+        Map<String, IntervalTree<String>> trees = new HashMap<>();
+        Set<String> employeeIds = new HashSet<>();
+        LocalDate from = null;
+        LocalDate to = null;
+        for (LeaveRequest leave : leaves) {
+            if (hasPeriod(leave)) {
+                employeeIds.add(leave.getEmployeeId());
+                from = from == null || leave.getStartDate().isBefore(from) ? leave.getStartDate() : from;
+                to = to == null || leave.getEndDate().isAfter(to) ? leave.getEndDate() : to;
+            }
+        }
+        if (employeeIds.isEmpty()) {
+            return trees;
+        }
+        for (LeaveRequest leave : repository.findOverlapping("employeeId", employeeIds, "startDate", "endDate", from, to)) {
+            if ("APPROVED".equals(leave.getStatus()) && hasPeriod(leave)) {
+                trees.computeIfAbsent(leave.getEmployeeId(), key -> new IntervalTree<>())
+                     .insert(leave.getStartDate().toEpochDay(), leave.getEndDate().toEpochDay(), leave.getId());
+            }
+        }
+        return trees;
+    }
+
+    private static List<String> idsOf(List<LeaveRequest> leaves) {
+        List<String> ids = new ArrayList<>(leaves.size());
+        for (LeaveRequest leave : leaves) {
+            ids.add(leave.getId());
+        }
+        return ids;
     }
-}
 
+    // Vrai si la demande a un employé et une période valide
+    private static boolean hasPeriod(LeaveRequest leave) {
+        return leave.getEmployeeId() != null && leave.getStartDate() != null && leave.getEndDate() != null
+                && !leave.getEndDate().isBefore(leave.getStartDate());
+    }
+
+    // Statut actuel de chaque demande existante (lecture du seul statut)
+    private Map<String, String> findStatuses(List<String> ids) {
+        Map<String, String> statuses = new HashMap<>();
+        for (LeaveRequest leave : repository.findByIds(ids, "status")) {
+            statuses.put(leave.getId(), leave.getStatus());
+        }
+        return statuses;
+    }
+
+    // Renseigne le nom de l'employé d'une demande (reçue par le flux de changements par exemple)
+    public LeaveRequest resolveEmployeeName(LeaveRequest leave) {
+        return Metrics.time("LeaveService.resolveEmployeeName", () -> {
+            resolveEmployeeNames(Collections.singletonList(leave));
+            return leave;
+        });
+    }
+
+    // Renseigne le nom de l'employé de chaque demande avec une seule requête
+    private void resolveEmployeeNames(List<LeaveRequest> leaves) {
+        Set<String> employeeIds = new HashSet<>();
+        for (LeaveRequest leave : leaves) {
+            if (leave.getEmployeeId() != null) {
+                employeeIds.add(leave.getEmployeeId());
+            }
+        }
+        if (employeeIds.isEmpty()) {
+            return;
+        }
+        Map<String, String> names = employeeService.findNamesByIds(employeeIds);
+        for (LeaveRequest leave : leaves) {
+            String name = names.get(leave.getEmployeeId());
+            if (name != null) {
+                leave.setEmployeeName(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,823 @@
+package services;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+// Stockage embarqué : journal en ajout seul, projeté en mémoire (memory-mapped),
+// avec un index primaire id -> position en mémoire et un compactage automatique.
+// Un enregistrement = longueur (int) | CRC32 (int) | type (PUT ou DELETE) | BSON ou id.
+// La longueur est écrite en dernier : un enregistrement interrompu (arrêt brutal) vaut
+// longueur 0 ou a un CRC faux, et marque la fin du journal à la réouverture.
+public class LogRepository<T> implements Repository<T>, Closeable {
+    private static final int HEADER_SIZE = 9;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final long INITIAL_CAPACITY = 1 << 20;
+    // Compactage quand les enregistrements périmés dépassent les vivants (et au moins 1 Mo)
+    private static final long COMPACT_MIN_DEAD_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final String name;
+    private final Codec<T> codec;
+    private final Function<T, String> idOf;
+    private final boolean sync;
+    private final BsonDocumentCodec documentCodec = new BsonDocumentCodec();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Index primaire : id -> position de la dernière version (ordre des id = ordre des ObjectId)
+    private final TreeMap<String, Long> index = new TreeMap<>();
+    // Index de tri construits au premier tri (champ [+ sans la casse] -> éléments triés), voir findSortedPage
+    private final Map<String, SortIndex> sortIndexes = new HashMap<>();
+
+    private int generation;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long end;
+    private long liveBytes;
+    private long deadBytes;
+
+    // Ouvre (ou crée) le journal "<name>.<génération>.log" dans le dossier ;
+    // "sync" force l'écriture sur disque après chaque modification
+    public LogRepository(Path directory, String name, Codec<T> codec, Function<T, String> idOf, boolean sync) {
+        this.directory = directory;
+        this.name = name;
+        this.codec = codec;
+        this.idOf = idOf;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            generation = latestGeneration();
+            open(file(generation));
+            deleteOlderGenerations();
+            if (shouldCompact()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open store " + file(generation), e);
+        }
+    }
+
+    @Override
+    public void insert(T item) {
+        String id = idOf.apply(item);
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(id)) {
+                throw new IllegalArgumentException("Duplicate id " + id + " in " + name);
+            }
+            append(PUT, id, encode(item));
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Une seule synchronisation disque pour tout le lot
+    @Override
+    public Map<Integer, String> insertAll(List<T> items) {
+        Map<Integer, String> errors = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                String id = idOf.apply(items.get(i));
+                if (index.containsKey(id)) {
+                    errors.put(i, "duplicate id " + id);
+                } else {
+                    append(PUT, id, encode(items.get(i)));
+                }
+            }
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return errors;
+    }
+
+    @Override
+    public void replace(T item) {
+        String id = idOf.apply(item);
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(id)) {
+                append(PUT, id, encode(item));
+                afterWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public T findById(String id) {
+        lock.readLock().lock();
+        try {
+            Long position = index.get(id);
+            return position != null ? decode(position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Les documents sont lus en entier : la liste de champs ne sert qu'à MongoDB
+    @Override
+    public List<T> findByIds(Collection<String> ids, String... fields) {
+        List<T> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String id : ids) {
+                Long position = index.get(id);
+                if (position != null) {
+                    items.add(decode(position));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Pas d'index secondaire : parcours du journal, sans décoder les documents écartés
+    @Override
+    public List<T> findBy(String field, Collection<String> values, String... fields) {
+        Set<String> wanted = new HashSet<>();
+        for (String value : values) {
+            wanted.add(Criteria.foldCase(value));
+        }
+        List<T> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                String value = readField(position, field);
+                if (value != null && wanted.contains(Criteria.foldCase(value))) {
+                    items.add(decode(position));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    @Override
+    public List<T> findOverlapping(String keyField, Collection<String> keys, String startField, String endField,
+                                   LocalDate from, LocalDate to) {
+        Set<String> wanted = new HashSet<>(keys);
+        long fromMillis = ModelCodecProvider.toEpochMillis(from);
+        long toMillis = ModelCodecProvider.toEpochMillis(to);
+        List<T> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                if (!wanted.contains(readField(position, keyField))) {
+                    continue;
+                }
+                Long start = readDate(position, startField);
+                Long end = readDate(position, endField);
+                if (start != null && end != null && start <= toMillis && end >= fromMillis) {
+                    items.add(decode(position));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Sans la casse, valeurs nulles en premier, comme le tri ascendant de MongoDB
+    @Override
+    public List<T> findSorted(String sortField, String... fields) {
+        List<Map.Entry<String, Long>> keys = new ArrayList<>();
+        List<T> items = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                keys.add(new AbstractMap.SimpleEntry<>(readField(position, sortField), position));
+            }
+            keys.sort(Map.Entry.comparingByKey(Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+            for (Map.Entry<String, Long> key : keys) {
+                items.add(decode(key.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Le verrou n'est tenu que le temps de décoder chaque lot, pas pendant le traitement
+    @Override
+    public void forEach(int batchSize, Consumer<T> consumer) {
+        String after = null;
+        while (true) {
+            List<T> batch = new ArrayList<>(batchSize);
+            lock.readLock().lock();
+            try {
+                NavigableMap<String, Long> rest = after != null ? index.tailMap(after, false) : index;
+                for (Map.Entry<String, Long> entry : rest.entrySet()) {
+                    batch.add(decode(entry.getValue()));
+                    after = entry.getKey();
+                    if (batch.size() == batchSize) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            batch.forEach(consumer);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<T> findPage(String fromId, int skip, int limit) {
+        List<T> items = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Long> rest = fromId != null ? index.tailMap(fromId, true) : index;
+            int skipped = 0;
+            for (long position : rest.values()) {
+                if (skipped++ < skip) {
+                    continue;
+                }
+                if (items.size() == limit) {
+                    break;
+                }
+                items.add(decode(position));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Pas d'index secondaire : parcours du journal, seuls les éléments retenus sont décodés
+    @Override
+    public List<T> findPage(Criteria criteria, Object fromKey, String fromId, int skip, int limit, String... fields) {
+        if (criteria.getSortField() != null) {
+            return findSortedPage(criteria, fromKey, fromId, skip, limit);
+        }
+        List<T> items = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Long> rest = fromId != null ? index.tailMap(fromId, true) : index;
+            int skipped = 0;
+            for (long position : rest.values()) {
+                if (items.size() == limit) {
+                    break;
+                }
+                if (!matches(position, criteria) || skipped++ < skip) {
+                    continue;
+                }
+                items.add(decode(position));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Tri : l'index de tri du champ (construit au premier tri, puis tenu à jour à chaque écriture)
+    // est parcouru à partir de l'élément de départ, seuls les éléments parcourus jusqu'à remplir
+    // la page sont lus
+    private List<T> findSortedPage(Criteria criteria, Object fromKey, String fromId, int skip, int limit) {
+        List<T> items = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            SortIndex sorted = sortIndex(criteria.getSortField(), criteria.isIgnoreCase());
+            boolean descending = criteria.isDescending();
+            NavigableSet<SortEntry> rest = descending ? sorted.entries.descendingSet() : sorted.entries;
+            if (fromId != null) {
+                // L'élément de départ a pu être supprimé entre-temps : on part du suivant dans l'ordre demandé
+                SortEntry start = sorted.entry(fromKey, fromId);
+                rest = descending ? sorted.entries.headSet(start, true).descendingSet() : sorted.entries.tailSet(start, true);
+            }
+            int skipped = 0;
+            for (SortEntry entry : rest) {
+                if (items.size() == limit) {
+                    break;
+                }
+                long position = index.get(entry.id);
+                if (!matches(position, criteria) || skipped++ < skip) {
+                    continue;
+                }
+                items.add(decode(position));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return items;
+    }
+
+    // Appelé sous le verrou de lecture : aucune écriture ne peut modifier les index de tri pendant ce temps
+    private SortIndex sortIndex(String field, boolean ignoreCase) {
+        synchronized (sortIndexes) {
+            return sortIndexes.computeIfAbsent(field + (ignoreCase ? "/ignoreCase" : ""), key -> {
+                SortIndex sorted = new SortIndex(field, ignoreCase);
+                for (Map.Entry<String, Long> entry : index.entrySet()) {
+                    sorted.entries.add(sorted.entry(readValue(entry.getValue(), field), entry.getKey()));
+                }
+                return sorted;
+            });
+        }
+    }
+
+    // Reporte une écriture dans les index de tri déjà construits (avant la mise à jour de l'index primaire)
+    private void updateSortIndexes(byte type, String id, long position) {
+        synchronized (sortIndexes) {
+            Long previous = index.get(id);
+            for (SortIndex sorted : sortIndexes.values()) {
+                if (previous != null) {
+                    sorted.entries.remove(sorted.entry(readValue(previous, sorted.field), id));
+                }
+                if (type == PUT) {
+                    sorted.entries.add(sorted.entry(readValue(position, sorted.field), id));
+                }
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Un seul client : pas de flux de changements, l'instant de lecture n'est pas utile
+    @Override
+    public CountResult count(Criteria criteria) {
+        if (criteria.isEmpty()) {
+            return new CountResult(count(), 0);
+        }
+        long count = 0;
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                if (matches(position, criteria)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new CountResult(count, 0);
+    }
+
+    @Override
+    public List<String> distinct(String field) {
+        Set<String> values = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                String value = readField(position, field);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(values);
+    }
+
+    @Override
+    public Map<String, Long> countBy(String field) {
+        Map<String, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (long position : index.values()) {
+                counts.merge(readField(position, field), 1L, Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    @Override
+    public T update(String id, String field, String value) {
+        lock.writeLock().lock();
+        try {
+            Long position = index.get(id);
+            if (position == null) {
+                return null;
+            }
+            setField(id, position, field, value);
+            afterWrite();
+            return decode(index.get(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long updateAll(Collection<String> ids, String field, String expected, String value) {
+        long modified = 0;
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Long position = index.get(id);
+                if (position != null && expected.equals(readField(position, field))) {
+                    setField(id, position, field, value);
+                    modified++;
+                }
+            }
+            if (modified > 0) {
+                afterWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return deleteAll(List.of(id)) > 0;
+    }
+
+    @Override
+    public long deleteAll(Collection<String> ids) {
+        long deleted = 0;
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                if (index.containsKey(id)) {
+                    append(DELETE, id, id.getBytes(StandardCharsets.UTF_8));
+                    deleted++;
+                }
+            }
+            if (deleted > 0) {
+                afterWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return deleted;
+    }
+
+    // Synchronise et ferme le journal
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Réécrit les seuls enregistrements vivants dans la génération suivante du journal
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path previous = file(generation);
+            Path temporary = directory.resolve(name + "." + (generation + 1) + ".log.tmp");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (long position : index.values()) {
+                    ByteBuffer record = buffer.duplicate();
+                    record.position((int) position).limit((int) (position + recordSize(position)));
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+                out.force(true);
+            }
+            Files.move(temporary, file(generation + 1));
+            generation++;
+            channel.close();
+            open(file(generation));
+            try {
+                Files.deleteIfExists(previous);
+            } catch (IOException e) {
+                // Ancienne projection pas encore libérée (Windows) : supprimée à la prochaine ouverture
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Projette le fichier et reconstruit l'index en relisant le journal
+    private void open(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        map(Math.max(INITIAL_CAPACITY, size));
+        index.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+        long position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt((int) position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()
+                    || buffer.getInt((int) position + 4) != checksum(position, length)) {
+                break;
+            }
+            byte type = buffer.get((int) position + 8);
+            apply(type, type == PUT ? readId(position) : readDeletedId(position, length), position);
+            position += HEADER_SIZE + length;
+        }
+        end = position;
+        // Efface un éventuel enregistrement interrompu pour qu'il ne soit jamais relu
+        for (long i = end; i < Math.min(size, end + HEADER_SIZE); i++) {
+            buffer.put((int) i, (byte) 0);
+        }
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Store " + name + " exceeds 2 GB");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    // Ajoute un enregistrement en fin de journal et met l'index à jour
+    private void append(byte type, String id, byte[] payload) {
+        long position = end;
+        long size = HEADER_SIZE + payload.length;
+        try {
+            if (position + size + HEADER_SIZE > buffer.capacity()) {
+                buffer.force();
+                map(Math.max(buffer.capacity() * 2L, position + size + HEADER_SIZE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer out = buffer.duplicate();
+        out.position((int) position + 8);
+        out.put(type).put(payload);
+        // Fin de journal explicite après l'enregistrement, puis longueur en dernier
+        buffer.putInt((int) (position + size), 0);
+        buffer.putInt((int) position + 4, checksum(position, payload.length));
+        buffer.putInt((int) position, payload.length);
+        end = position + size;
+        updateSortIndexes(type, id, position);
+        apply(type, id, position);
+    }
+
+    private void apply(byte type, String id, long position) {
+        long size = recordSize(position);
+        Long previous = type == PUT ? index.put(id, position) : index.remove(id);
+        if (previous != null) {
+            long previousSize = recordSize(previous);
+            liveBytes -= previousSize;
+            deadBytes += previousSize;
+        }
+        if (type == PUT) {
+            liveBytes += size;
+        } else {
+            deadBytes += size;
+        }
+    }
+
+    private void afterWrite() {
+        if (sync) {
+            buffer.force();
+        }
+        if (shouldCompact()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // Le journal reste valide : le compactage sera retenté à la prochaine écriture
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private boolean shouldCompact() {
+        return deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes > liveBytes;
+    }
+
+    // Réécrit le document avec la nouvelle valeur du champ
+    private void setField(String id, long position, String field, String value) {
+        BsonDocument document = documentCodec.decode(reader(position), DecoderContext.builder().build());
+        document.put(field, new BsonString(value));
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(output), document, EncoderContext.builder().build());
+        append(PUT, id, output.toByteArray());
+    }
+
+    private T decode(long position) {
+        return codec.decode(reader(position), DecoderContext.builder().build());
+    }
+
+    private byte[] encode(T item) {
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(output), item, EncoderContext.builder().build());
+        return output.toByteArray();
+    }
+
+    // Vrai si le document vérifie tous les critères (lus sans décoder le document entier)
+    private boolean matches(long position, Criteria criteria) {
+        for (Criteria.Condition condition : criteria.getConditions()) {
+            Object value = condition.getValue();
+            switch (condition.getOperator()) {
+                case EQ:
+                    if (!value.equals(readField(position, condition.getField()))) {
+                        return false;
+                    }
+                    break;
+                case IN:
+                    if (!((Collection<?>) value).contains(readField(position, condition.getField()))) {
+                        return false;
+                    }
+                    break;
+                case GTE:
+                case LTE:
+                    Long date = readDate(position, condition.getField());
+                    long bound = ModelCodecProvider.toEpochMillis((LocalDate) value);
+                    if (date == null || (condition.getOperator() == Criteria.Operator.GTE ? date < bound : date > bound)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator " + condition.getOperator());
+            }
+        }
+        return true;
+    }
+
+    // Éléments triés par (champ, identifiant) dans l'ordre croissant de MongoDB : valeurs nulles
+    // en premier, textes avant dates ; sans la casse, les textes sont comparés par Criteria.foldCase
+    private static final class SortIndex {
+        private static final Comparator<Object> VALUES = (a, b) -> {
+            if (a instanceof Long || b instanceof Long) {
+                return a instanceof Long && b instanceof Long
+                        ? Long.compare((Long) a, (Long) b) : Boolean.compare(a instanceof Long, b instanceof Long);
+            }
+            return ((String) a).compareTo((String) b);
+        };
+
+        private final String field;
+        private final boolean ignoreCase;
+        private final NavigableSet<SortEntry> entries = new TreeSet<>(
+                Comparator.comparing((SortEntry entry) -> entry.key, Comparator.nullsFirst(VALUES))
+                        .thenComparing(entry -> entry.id));
+
+        SortIndex(String field, boolean ignoreCase) {
+            this.field = field;
+            this.ignoreCase = ignoreCase;
+        }
+
+        // Entrée d'un élément : les dates (LocalDate ou millisecondes) deviennent des millisecondes
+        SortEntry entry(Object value, String id) {
+            if (value instanceof LocalDate) {
+                value = ModelCodecProvider.toEpochMillis((LocalDate) value);
+            } else if (value instanceof String && ignoreCase) {
+                value = Criteria.foldCase((String) value);
+            }
+            return new SortEntry(value, id);
+        }
+    }
+
+    private static final class SortEntry {
+        private final Object key;
+        private final String id;
+
+        SortEntry(Object key, String id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    // Lecteur BSON directement sur la zone projetée, sans copie
+    private BsonBinaryReader reader(long position) {
+        ByteBuffer document = buffer.duplicate();
+        int start = (int) position + HEADER_SIZE;
+        document.position(start).limit(start + buffer.getInt((int) position));
+        return new BsonBinaryReader(document.slice());
+    }
+
+    // Valeur d'un champ chaîne ou identifiant, null s'il est absent ou d'un autre type
+    private String readField(long position, String field) {
+        Object value = readValue(position, field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    // Valeur d'un champ chaîne, identifiant ou date (millisecondes), null s'il est absent ou d'un autre type
+    private Object readValue(long position, String field) {
+        try (BsonBinaryReader reader = reader(position)) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (!reader.readName().equals(field)) {
+                    reader.skipValue();
+                } else if (reader.getCurrentBsonType() == BsonType.STRING) {
+                    return reader.readString();
+                } else if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+                    return reader.readObjectId().toHexString();
+                } else if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+                    return reader.readDateTime();
+                } else {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Valeur d'un champ date (millisecondes), null s'il est absent ou d'un autre type
+    private Long readDate(long position, String field) {
+        Object value = readValue(position, field);
+        return value instanceof Long ? (Long) value : null;
+    }
+
+    private String readId(long position) {
+        return readField(position, "_id");
+    }
+
+    private String readDeletedId(long position, int length) {
+        byte[] id = new byte[length];
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) position + HEADER_SIZE);
+        record.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private long recordSize(long position) {
+        return HEADER_SIZE + buffer.getInt((int) position);
+    }
+
+    // CRC32 du type et du contenu
+    private int checksum(long position, int length) {
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) position + 8).limit((int) position + HEADER_SIZE + length);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private Path file(int gen) {
+        return directory.resolve(name + "." + gen + ".log");
+    }
+
+    private int latestGeneration() throws IOException {
+        int latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + ".*.log")) {
+            for (Path path : files) {
+                String middle = path.getFileName().toString().substring(name.length() + 1);
+                try {
+                    latest = Math.max(latest, Integer.parseInt(middle.substring(0, middle.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // Fichier d'un autre nom, ignoré
+                }
+            }
+        }
+        return latest;
+    }
+
+    // Supprime les générations remplacées par un compactage et les compactages interrompus
+    private void deleteOlderGenerations() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + ".*.log*")) {
+            for (Path path : files) {
+                if (!path.equals(file(generation))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Mesures de latence par opération (méthodes des services, commandes MongoDB)
+// Export texte périodique : -Dems.metrics.export=metrics.txt [-Dems.metrics.interval=60] (secondes)
+public class Metrics {
+    private static final Metrics instance = new Metrics();
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exporter;
+
+    private Metrics() {
+    }
+
+    // Retourne l'instance unique (Singleton)
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    // Mesure un appel qui renvoie un résultat (le nombre de documents est déduit du résultat)
+    // et émet l'événement JFR ServiceCall
+    public static <T> T time(String operation, Supplier<T> call) {
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        T result = null;
+        try {
+            result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            long documents = documentsIn(result);
+            instance.record(operation, (System.nanoTime() - start) / 1000, documents, 0, failed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.documents = documents;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    // Mesure un appel sans résultat
+    public static void time(String operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Enregistre une mesure (latence en microsecondes)
+    public void record(String operation, long micros, long documents, long bytes, boolean failed) {
+        operations.computeIfAbsent(operation, OperationMetrics::new).record(micros, documents, bytes, failed);
+    }
+
+    // Mesures de toutes les opérations, triées par nom
+    public List<OperationMetrics.Snapshot> snapshot() {
+        List<OperationMetrics.Snapshot> snapshots = new ArrayList<>();
+        for (OperationMetrics metrics : operations.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(OperationMetrics.Snapshot::getName));
+        return snapshots;
+    }
+
+    // Remet les compteurs à zéro
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    // Rapport texte, une ligne par opération
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("# EMS metrics ").append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+           .append(System.lineSeparator());
+        out.append(String.format("%-40s %9s %7s %10s %10s %10s %12s %14s%n",
+                "operation", "count", "errors", "p50(us)", "p99(us)", "max(us)", "documents", "bytes"));
+        for (OperationMetrics.Snapshot s : snapshot()) {
+            out.append(String.format("%-40s %9d %7d %10d %10d %10d %12d %14d%n", s.getName(), s.getCount(),
+                    s.getErrors(), s.getP50(), s.getP99(), s.getMax(), s.getDocuments(), s.getBytes()));
+        }
+        EmployeeCache cache = EmployeeCache.shared();
+        if (cache != null) {
+            out.append(cache.getStats()).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    // Écrit le rapport dans un fichier (remplacé d'un bloc)
+    public void writeReport(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, report().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Démarre l'export périodique si -Dems.metrics.export est renseigné
+    public synchronized void startExport() {
+        String file = System.getProperty("ems.metrics.export");
+        if (file == null || file.trim().isEmpty() || exporter != null) {
+            return;
+        }
+        Path path = Paths.get(file.trim());
+        long interval = Math.max(1, Long.getLong("ems.metrics.interval", 60));
+        exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                writeReport(path);
+            } catch (IOException e) {
+                System.err.println("Error writing metrics to " + path + ": " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // Arrête l'export et écrit un dernier rapport (à la fermeture de l'application)
+    public synchronized void stopExport() {
+        if (exporter == null) {
+            return;
+        }
+        exporter.shutdownNow();
+        exporter = null;
+        try {
+            writeReport(Paths.get(System.getProperty("ems.metrics.export").trim()));
+        } catch (IOException e) {
+            System.err.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    // Documents renvoyés : taille d'une liste ou d'un dictionnaire, 1 pour un objet, 0 sinon
+    private static long documentsIn(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result == null || result instanceof Number || result instanceof Boolean) {
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,110 @@
+package services;
+
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Fournit les codecs qui décodent le BSON directement en objets du modèle,
+// sans passer par un org.bson.Document intermédiaire
+public class ModelCodecProvider implements CodecProvider {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (clazz == Employee.class) {
+            return (Codec<T>) new EmployeeCodec();
+        }
+        if (clazz == Department.class) {
+            return (Codec<T>) new DepartmentCodec();
+        }
+        if (clazz == LeaveRequest.class) {
+            return (Codec<T>) new LeaveRequestCodec();
+        }
+        return null;
+    }
+
+    // Convertit LocalDate en millisecondes (minuit, fuseau local) pour MongoDB
+    static long toEpochMillis(LocalDate localDate) {
+        return localDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Convertit une date MongoDB (millisecondes) en LocalDate
+    static LocalDate toLocalDate(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // Écrit l'identifiant s'il existe (sinon MongoDB n'en reçoit pas)
+    static void writeId(BsonWriter writer, String id) {
+        if (id != null && !id.isEmpty()) {
+            writer.writeObjectId("_id", new ObjectId(id));
+        }
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeDate(BsonWriter writer, String name, LocalDate value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDateTime(name, toEpochMillis(value));
+        }
+    }
+
+    // Lit l'identifiant (ObjectId ou chaîne)
+    static String readId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId().toHexString();
+        }
+        return readString(reader);
+    }
+
+    // Lit une chaîne, null si le champ est nul ou d'un autre type
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    // Lit une date, null si le champ est nul ou d'un autre type
+    static LocalDate readDate(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+            return toLocalDate(reader.readDateTime());
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    // Lit un entier, null si le champ est nul ou n'est pas numérique
+    static Integer readInteger(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+}
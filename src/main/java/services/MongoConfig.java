@@ -0,0 +1,188 @@
+package services;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Configuration de la connexion MongoDB, lue depuis mongo.properties
+// (classpath par défaut, surchargé par ./mongo.properties ou -Dems.config=...)
+public class MongoConfig {
+    private static final String DEFAULTS = "/mongo.properties";
+    private static final String LOCAL_FILE = "mongo.properties";
+    private static final String CONFIG_PROPERTY = "ems.config";
+
+    private final Properties properties;
+
+    public MongoConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    // Charge la configuration : valeurs par défaut, puis fichier externe, puis propriétés système
+    public static MongoConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = MongoConfig.class.getResourceAsStream(DEFAULTS)) {
+            if (in != null) {
+                properties.load(in);
+            }
+            String external = System.getProperty(CONFIG_PROPERTY);
+            Path path = external != null ? Paths.get(external) : Paths.get(LOCAL_FILE);
+            if (Files.isRegularFile(path)) {
+                try (InputStream file = Files.newInputStream(path)) {
+                    properties.load(file);
+                }
+            } else if (external != null) {
+                throw new IllegalStateException("MongoDB config file not found: " + path.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read MongoDB configuration", e);
+        }
+        // Les propriétés système (-Dmongo.uri=...) ont le dernier mot
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("mongo.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return new MongoConfig(properties);
+    }
+
+    public String getDatabaseName() {
+        return properties.getProperty("mongo.database", "employee_db");
+    }
+
+    // Construit les réglages du client à partir de la configuration
+    // Chaque clé présente remplace l'option correspondante de l'URI ; une clé absente laisse
+    // la valeur de l'URI (ou, à défaut, celle du driver)
+    public MongoClientSettings toSettings() {
+        ConnectionString uri = new ConnectionString(properties.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        Integer minSize = getInt("mongo.pool.minSize");
+        Integer maxSize = getInt("mongo.pool.maxSize");
+        Long maxIdleMs = getLong("mongo.pool.maxIdleTimeMs");
+        Integer connectMs = getInt("mongo.connectTimeoutMs");
+        Integer socketMs = getInt("mongo.socketTimeoutMs");
+        Long selectionMs = getLong("mongo.serverSelectionTimeoutMs");
+
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(uri)
+                .applyToConnectionPoolSettings(pool -> {
+                    if (minSize != null) {
+                        pool.minSize(minSize);
+                    }
+                    if (maxSize != null) {
+                        pool.maxSize(maxSize);
+                    }
+                    if (maxIdleMs != null) {
+                        pool.maxConnectionIdleTime(maxIdleMs, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .applyToSocketSettings(socket -> {
+                    if (connectMs != null) {
+                        socket.connectTimeout(connectMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (socketMs != null) {
+                        socket.readTimeout(socketMs, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .applyToClusterSettings(cluster -> {
+                    if (selectionMs != null) {
+                        cluster.serverSelectionTimeout(selectionMs, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .codecRegistry(codecRegistry())
+                // Latence, documents et octets de chaque commande (panneau Diagnostics)
+                .addCommandListener(new MongoMetrics());
+        // Une valeur vide désactive la compression, même si l'URI en demande une
+        if (properties.getProperty("mongo.compressors") != null) {
+            builder.compressorList(getCompressors());
+        }
+        if (isSet("mongo.readPreference")) {
+            builder.readPreference(ReadPreference.valueOf(properties.getProperty("mongo.readPreference").trim()));
+        }
+        if (isSet("mongo.writeConcern")) {
+            builder.writeConcern(getWriteConcern());
+        }
+        return builder.build();
+    }
+
+    // Codecs du modèle (Employee, Department, LeaveRequest) en plus des codecs par défaut
+    public static CodecRegistry codecRegistry() {
+        return CodecRegistries.fromRegistries(
+                MongoClientSettings.getDefaultCodecRegistry(),
+                CodecRegistries.fromProviders(new ModelCodecProvider()));
+    }
+
+    // Liste des algorithmes de compression, dans l'ordre de préférence
+    private List<MongoCompressor> getCompressors() {
+        List<MongoCompressor> compressors = new ArrayList<>();
+        for (String name : properties.getProperty("mongo.compressors", "").split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "":
+                    break;
+                case "zstd":
+                    compressors.add(MongoCompressor.createZstdCompressor());
+                    break;
+                case "snappy":
+                    compressors.add(MongoCompressor.createSnappyCompressor());
+                    break;
+                case "zlib":
+                    compressors.add(MongoCompressor.createZlibCompressor());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown MongoDB compressor: " + name.trim());
+            }
+        }
+        return compressors;
+    }
+
+    private WriteConcern getWriteConcern() {
+        String name = properties.getProperty("mongo.writeConcern").trim();
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+        if (writeConcern == null) {
+            throw new IllegalStateException("Unknown MongoDB write concern: " + name);
+        }
+        return writeConcern;
+    }
+
+    private boolean isSet(String key) {
+        String value = properties.getProperty(key);
+        return value != null && !value.trim().isEmpty();
+    }
+
+    // Valeur numérique de la clé, null si elle est absente ; refusée si elle dépasse un int
+    private Integer getInt(String key) {
+        Long value = getLong(key);
+        if (value == null) {
+            return null;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of int range for " + key + ": " + value);
+        }
+        return value.intValue();
+    }
+
+    private Long getLong(String key) {
+        if (!isSet(key)) {
+            return null;
+        }
+        String value = properties.getProperty(key);
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+}
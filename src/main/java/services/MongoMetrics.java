@@ -0,0 +1,45 @@
+package services;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import java.util.concurrent.TimeUnit;
+
+// Mesure chaque commande envoyée au serveur ("mongo.find", "mongo.insert"...) :
+// latence réseau comprise, documents renvoyés par les curseurs et taille des réponses
+public class MongoMetrics implements CommandListener {
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        BsonDocument response = event.getResponse();
+        Metrics.getInstance().record("mongo." + event.getCommandName(), event.getElapsedTime(TimeUnit.MICROSECONDS),
+                documentsIn(response), bytesOf(response), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Metrics.getInstance().record("mongo." + event.getCommandName(), event.getElapsedTime(TimeUnit.MICROSECONDS),
+                0, 0, true);
+    }
+
+    // Taille de la réponse telle que reçue (le pilote la transmet sans la recopier)
+    private static long bytesOf(BsonDocument response) {
+        return response instanceof RawBsonDocument ? ((RawBsonDocument) response).getByteBuffer().remaining() : 0;
+    }
+
+    // Documents d'un lot de curseur (find, aggregate, getMore)
+    private static long documentsIn(BsonDocument response) {
+        BsonValue cursor = response != null ? response.get("cursor") : null;
+        if (cursor == null || !cursor.isDocument()) {
+            return 0;
+        }
+        BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                ? cursor.asDocument().get("firstBatch") : cursor.asDocument().get("nextBatch");
+        return batch instanceof BsonArray ? ((BsonArray) batch).size() : 0;
+    }
+}
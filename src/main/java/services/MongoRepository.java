@@ -0,0 +1,309 @@
+package services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Stockage dans une collection MongoDB (décodée par les codecs du modèle)
+public class MongoRepository<T> implements Repository<T> {
+    // Comparaison des textes sans la casse ni les accents (index et requêtes triées par nom)
+    public static final Collation CASE_INSENSITIVE = Collation.builder()
+            .locale("en").collationStrength(CollationStrength.SECONDARY).build();
+
+    private final MongoCollection<T> collection;
+    private final Function<T, String> idOf;
+
+    public MongoRepository(MongoCollection<T> collection, Function<T, String> idOf) {
+        this.collection = collection;
+        this.idOf = idOf;
+    }
+
+    // Collection sous-jacente (index, plans d'exécution, flux de changements)
+    public MongoCollection<T> getCollection() {
+        return collection;
+    }
+
+    @Override
+    public void insert(T item) {
+        collection.insertOne(item);
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<T> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            collection.insertMany(items, new InsertManyOptions().ordered(false));
+            return Collections.emptyMap();
+        } catch (MongoBulkWriteException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            return errors;
+        }
+    }
+
+    @Override
+    public void replace(T item) {
+        collection.replaceOne(byId(idOf.apply(item)), item);
+    }
+
+    @Override
+    public T findById(String id) {
+        return collection.find(byId(id)).first();
+    }
+
+    @Override
+    public List<T> findByIds(Collection<String> ids, String... fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return project(collection.find(Filters.in("_id", toObjectIds(ids))), fields).into(new ArrayList<>());
+    }
+
+    // Collation sans la casse : servie par les index (champ, ...) déclarés avec CASE_INSENSITIVE
+    @Override
+    public List<T> findBy(String field, Collection<String> values, String... fields) {
+        if (values.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return project(collection.find(Filters.in(field, values)), fields).collation(CASE_INSENSITIVE)
+                .into(new ArrayList<>());
+    }
+
+    // Requête d'intervalle couverte par un index (keyField, startField, endField)
+    @Override
+    public List<T> findOverlapping(String keyField, Collection<String> keys, String startField, String endField,
+                                   LocalDate from, LocalDate to) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return collection.find(Filters.and(
+                Filters.in(keyField, keys),
+                Filters.lte(startField, new BsonDateTime(ModelCodecProvider.toEpochMillis(to))),
+                Filters.gte(endField, new BsonDateTime(ModelCodecProvider.toEpochMillis(from)))))
+                .into(new ArrayList<>());
+    }
+
+    // Collation de l'index (champ, _id) sans la casse : le tri le parcourt au lieu de trier en mémoire
+    @Override
+    public List<T> findSorted(String sortField, String... fields) {
+        return project(collection.find(), fields).sort(Sorts.ascending(sortField)).collation(CASE_INSENSITIVE)
+                .into(new ArrayList<>());
+    }
+
+    @Override
+    public void forEach(int batchSize, Consumer<T> consumer) {
+        for (T item : collection.find().batchSize(batchSize)) {
+            consumer.accept(item);
+        }
+    }
+
+    @Override
+    public List<T> findPage(String fromId, int skip, int limit) {
+        Bson filter = fromId != null ? Filters.gte("_id", new ObjectId(fromId)) : new Document();
+        return collection.find(filter).sort(Sorts.ascending("_id")).skip(skip).limit(limit)
+                         .into(new ArrayList<>(limit));
+    }
+
+    // Critères et point de départ dans un seul filtre : l'index (champs filtrés, champ de tri, _id)
+    // sert aussi au tri, et chaque page ne lit que ses propres entrées d'index
+    @Override
+    public List<T> findPage(Criteria criteria, Object fromKey, String fromId, int skip, int limit, String... fields) {
+        List<Bson> filters = toFilters(criteria);
+        String sortField = criteria.getSortField();
+        FindIterable<T> find;
+        if (sortField == null) {
+            if (fromId != null) {
+                filters.add(Filters.gte("_id", new ObjectId(fromId)));
+            }
+            find = collection.find(and(filters)).sort(Sorts.ascending("_id"));
+        } else {
+            if (fromId != null) {
+                filters.add(startAt(sortField, toValue(fromKey), new ObjectId(fromId), criteria.isDescending()));
+            }
+            find = collection.find(and(filters)).sort(criteria.isDescending()
+                    ? Sorts.descending(sortField, "_id") : Sorts.ascending(sortField, "_id"));
+            if (criteria.isIgnoreCase()) {
+                // Même collation que l'index du champ, sinon MongoDB trie en mémoire
+                find = find.collation(CASE_INSENSITIVE);
+            }
+        }
+        return project(find, fields).skip(skip).limit(limit).into(new ArrayList<>(limit));
+    }
+
+    // Métadonnées de la collection, sans parcours
+    @Override
+    public long count() {
+        return collection.estimatedDocumentCount();
+    }
+
+    // Commande count : métadonnées sans critère, index sinon ; la réponse donne aussi l'instant
+    // de la lecture (operationTime), comparable à celui des événements du flux de changements
+    @Override
+    public CountResult count(Criteria criteria) {
+        BsonDocument command = new BsonDocument("count", new BsonString(collection.getNamespace().getCollectionName()));
+        if (!criteria.isEmpty()) {
+            command.append("query", and(toFilters(criteria)).toBsonDocument(BsonDocument.class, collection.getCodecRegistry()));
+        }
+        Document result = MongoService.getInstance().getDatabase().runCommand(command, collection.getReadPreference());
+        Number count = result.get("n", Number.class);
+        BsonTimestamp operationTime = result.get("operationTime", BsonTimestamp.class);
+        return new CountResult(count != null ? count.longValue() : 0L, operationTime != null ? operationTime.getValue() : 0L);
+    }
+
+    // Lu dans l'index du champ s'il existe (DISTINCT_SCAN)
+    @Override
+    public List<String> distinct(String field) {
+        List<String> values = new ArrayList<>();
+        for (String value : collection.distinct(field, String.class)) {
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    // Un seul $group côté serveur ; le $sort préalable fait lire l'index du champ (sans les documents)
+    // plutôt que toute la collection
+    @Override
+    public Map<String, Long> countBy(String field) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Document doc : collection.aggregate(Arrays.asList(
+                Aggregates.sort(Sorts.ascending(field)),
+                Aggregates.group("$" + field, Accumulators.sum("count", 1))), Document.class)) {
+            Number count = doc.get("count", Number.class);
+            counts.put(doc.getString("_id"), count != null ? count.longValue() : 0L);
+        }
+        return counts;
+    }
+
+    @Override
+    public T update(String id, String field, String value) {
+        return collection.findOneAndUpdate(byId(id), Updates.set(field, value),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    // Une seule écriture (updateMany), gardée par la valeur attendue
+    @Override
+    public long updateAll(Collection<String> ids, String field, String expected, String value) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return collection.updateMany(Filters.and(Filters.in("_id", toObjectIds(ids)), Filters.eq(field, expected)),
+                Updates.set(field, value)).getModifiedCount();
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return collection.deleteOne(byId(id)).getDeletedCount() > 0;
+    }
+
+    @Override
+    public long deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return collection.deleteMany(Filters.in("_id", toObjectIds(ids))).getDeletedCount();
+    }
+
+    // Une condition MongoDB par critère (les dates deviennent des BSON date)
+    private static List<Bson> toFilters(Criteria criteria) {
+        List<Bson> filters = new ArrayList<>();
+        for (Criteria.Condition condition : criteria.getConditions()) {
+            String field = condition.getField();
+            Object value = condition.getValue();
+            switch (condition.getOperator()) {
+                case EQ:
+                    filters.add(Filters.eq(field, value));
+                    break;
+                case IN:
+                    filters.add(Filters.in(field, (Collection<?>) value));
+                    break;
+                case GTE:
+                    filters.add(Filters.gte(field, toDateTime((LocalDate) value)));
+                    break;
+                case LTE:
+                    filters.add(Filters.lte(field, toDateTime((LocalDate) value)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator " + condition.getOperator());
+            }
+        }
+        return filters;
+    }
+
+    // Éléments placés à partir de (key, id) inclus dans l'ordre (champ, _id) ;
+    // les valeurs nulles viennent en premier en ordre croissant, en dernier en ordre décroissant
+    private static Bson startAt(String field, Object key, ObjectId id, boolean descending) {
+        if (key == null) {
+            Bson sameKey = Filters.and(Filters.eq(field, null), descending ? Filters.lte("_id", id) : Filters.gte("_id", id));
+            return descending ? sameKey : Filters.or(Filters.ne(field, null), sameKey);
+        }
+        if (descending) {
+            return Filters.or(Filters.lt(field, key), Filters.and(Filters.eq(field, key), Filters.lte("_id", id)),
+                    Filters.eq(field, null));
+        }
+        return Filters.or(Filters.gt(field, key), Filters.and(Filters.eq(field, key), Filters.gte("_id", id)));
+    }
+
+    private static Object toValue(Object key) {
+        return key instanceof LocalDate ? toDateTime((LocalDate) key) : key;
+    }
+
+    private static Bson and(List<Bson> filters) {
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+
+    private static BsonDateTime toDateTime(LocalDate date) {
+        return new BsonDateTime(ModelCodecProvider.toEpochMillis(date));
+    }
+
+    private static Bson byId(String id) {
+        return Filters.eq("_id", new ObjectId(id));
+    }
+
+    private static List<ObjectId> toObjectIds(Collection<String> ids) {
+        List<ObjectId> objectIds = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            objectIds.add(new ObjectId(id));
+        }
+        return objectIds;
+    }
+
+    private static <T> FindIterable<T> project(FindIterable<T> find, String... fields) {
+        return fields.length > 0 ? find.projection(Projections.include(fields)) : find;
+    }
+}
@@ -7,22 +7,23 @@ import com.mongodb.client.MongoDatabase;
 // Service pour gérer la connexion à MongoDB (pattern Singleton)
 public class MongoService {
     private static MongoService instance;
-    private MongoClient mongoClient;
-    private MongoDatabase database;
+    private final MongoClient mongoClient;
+    private final MongoDatabase database;
 
     // Constructeur privé pour le pattern Singleton
     private MongoService() {
+        // Client construit à partir de mongo.properties (pool, délais, compression...)
+        MongoConfig config = MongoConfig.load();
         try {
-            // Connexion à MongoDB sur localhost:27017
-            mongoClient = MongoClients.create("mongodb://localhost:27017");
-            database = mongoClient.getDatabase("employee_db");
-        } catch (Exception e) {
-            System.err.println("Error connecting to MongoDB: " + e.getMessage());
+            mongoClient = MongoClients.create(config.toSettings());
+            database = mongoClient.getDatabase(config.getDatabaseName());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Error connecting to MongoDB: " + e.getMessage(), e);
         }
     }
 
     // Retourne l'instance unique du service (Singleton)
-    public static MongoService getInstance() {
+    public static synchronized MongoService getInstance() {
         if (instance == null) {
             instance = new MongoService();
         }
@@ -33,5 +34,12 @@ public class MongoService {
     public MongoDatabase getDatabase() {
         return database;
     }
-}
 
+    // Ferme le client (à l'arrêt de l'application)
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.mongoClient.close();
+            instance = null;
+        }
+    }
+}
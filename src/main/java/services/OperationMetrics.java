@@ -0,0 +1,101 @@
+package services;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Mesures d'une opération : appels, erreurs, latences, documents renvoyés et octets reçus
+public class OperationMetrics {
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long micros, long documentCount, long byteCount, boolean failed) {
+        latencies.record(micros);
+        documents.add(documentCount);
+        bytes.add(byteCount);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.reset();
+        documents.reset();
+        bytes.reset();
+    }
+
+    // Copie figée des mesures (affichage, export)
+    public Snapshot snapshot() {
+        return new Snapshot(name, latencies.getCount(), errors.sum(), latencies.getValueAtPercentile(50),
+                latencies.getValueAtPercentile(99), latencies.getMax(), latencies.getMean(),
+                documents.sum(), bytes.sum());
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final long p50;
+        private final long p99;
+        private final long max;
+        private final double mean;
+        private final long documents;
+        private final long bytes;
+
+        Snapshot(String name, long count, long errors, long p50, long p99, long max, double mean,
+                 long documents, long bytes) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+            this.mean = mean;
+            this.documents = documents;
+            this.bytes = bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        // Latences en microsecondes
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package services;
+
+import com.mongodb.client.MongoDatabase;
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Choisit le stockage des collections du modèle et partage un Repository par collection
+// -Dems.store=mongo (par défaut) ou -Dems.store=embedded (journal local, sans serveur)
+// -Dems.store.dir=data : dossier du stockage embarqué ; -Dems.store.sync=false : pas de force() à chaque écriture
+public class Repositories {
+    public static final String STORE_PROPERTY = "ems.store";
+
+    private static final Map<Class<?>, Repository<?>> repositories = new HashMap<>();
+
+    private Repositories() {
+    }
+
+    // Vrai si les données sont dans le stockage embarqué (pas de MongoDB)
+    public static boolean isEmbedded() {
+        return "embedded".equalsIgnoreCase(System.getProperty(STORE_PROPERTY, "mongo").trim());
+    }
+
+    // Repository partagé d'une classe du modèle
+    public static synchronized Repository<Employee> employees() {
+        return get(Employee.class, Employee::getId);
+    }
+
+    public static synchronized Repository<Department> departments() {
+        return get(Department.class, Department::getId);
+    }
+
+    public static synchronized Repository<LeaveRequest> leaves() {
+        return get(LeaveRequest.class, LeaveRequest::getId);
+    }
+
+    // Ferme les journaux embarqués (à l'arrêt de l'application)
+    public static synchronized void shutdown() {
+        for (Repository<?> repository : repositories.values()) {
+            if (repository instanceof Closeable) {
+                try {
+                    ((Closeable) repository).close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        repositories.clear();
+    }
+
+    // Nom de la collection (ou du journal) d'une classe du modèle
+    static String collectionName(Class<?> type) {
+        if (type == Employee.class) {
+            return "employees";
+        }
+        if (type == Department.class) {
+            return "departments";
+        }
+        if (type == LeaveRequest.class) {
+            return "leave_requests";
+        }
+        throw new IllegalArgumentException("No collection for " + type.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Repository<T> get(Class<T> type, Function<T, String> idOf) {
+        return (Repository<T>) repositories.computeIfAbsent(type, key -> create(type, idOf));
+    }
+
+    private static <T> Repository<T> create(Class<T> type, Function<T, String> idOf) {
+        if (isEmbedded()) {
+            Path directory = Paths.get(System.getProperty("ems.store.dir", "data"));
+            boolean sync = Boolean.parseBoolean(System.getProperty("ems.store.sync", "true"));
+            CodecRegistry registry = MongoConfig.codecRegistry();
+            return new LogRepository<>(directory, collectionName(type), registry.get(type), idOf, sync);
+        }
+        MongoDatabase db = MongoService.getInstance().getDatabase();
+        return new MongoRepository<>(db.getCollection(collectionName(type), type), idOf);
+    }
+}
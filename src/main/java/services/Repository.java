@@ -0,0 +1,73 @@
+package services;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Accès aux données d'une collection du modèle, indépendamment du stockage
+// (MongoDB ou journal embarqué, voir Repositories)
+// Les champs filtrés, triés ou modifiés sont des chaînes (ou des identifiants)
+public interface Repository<T> {
+    // Insère un élément dont l'identifiant est déjà renseigné
+    void insert(T item);
+
+    // Insère plusieurs éléments sans s'arrêter au premier rejet ; retourne les erreurs par position
+    Map<Integer, String> insertAll(List<T> items);
+
+    // Remplace l'élément de même identifiant (sans effet s'il n'existe pas)
+    void replace(T item);
+
+    // Élément par identifiant, null s'il n'existe pas
+    T findById(String id);
+
+    // Éléments existants parmi ces identifiants ; "fields" limite les champs lus (l'identifiant est toujours lu)
+    List<T> findByIds(Collection<String> ids, String... fields);
+
+    // Éléments dont le champ vaut l'une des valeurs, sans la casse ; "fields" limite les champs lus
+    List<T> findBy(String field, Collection<String> values, String... fields);
+
+    // Éléments dont "keyField" vaut l'une des clés et dont la période [startField, endField]
+    // chevauche [from, to] (bornes incluses)
+    List<T> findOverlapping(String keyField, Collection<String> keys, String startField, String endField,
+                            LocalDate from, LocalDate to);
+
+    // Tous les éléments triés par le champ sans la casse ; "fields" limite les champs lus
+    List<T> findSorted(String sortField, String... fields);
+
+    // Parcourt tous les éléments par lots de "batchSize", sans tout garder en mémoire
+    void forEach(int batchSize, Consumer<T> consumer);
+
+    // Page d'éléments triés par identifiant, à partir de "fromId" inclus (null = début)
+    List<T> findPage(String fromId, int skip, int limit);
+
+    // Page d'éléments vérifiant les critères, dans l'ordre de tri des critères (à défaut par identifiant),
+    // à partir de l'élément (fromKey, fromId) inclus : fromKey est la valeur de son champ de tri
+    // (chaîne ou LocalDate, ignorée sans tri), fromId null = début ; "fields" limite les champs lus
+    List<T> findPage(Criteria criteria, Object fromKey, String fromId, int skip, int limit, String... fields);
+
+    // Nombre d'éléments
+    long count();
+
+    // Nombre d'éléments vérifiant les critères (tous sans critère) et instant de la lecture
+    CountResult count(Criteria criteria);
+
+    // Valeurs distinctes (non nulles) du champ
+    List<String> distinct(String field);
+
+    // Nombre d'éléments par valeur du champ
+    Map<String, Long> countBy(String field);
+
+    // Change un champ et retourne l'élément modifié, null s'il n'existe pas
+    T update(String id, String field, String value);
+
+    // Change un champ des éléments où il vaut encore "expected" ; retourne le nombre modifié
+    long updateAll(Collection<String> ids, String field, String expected, String value);
+
+    // Supprime un élément ; retourne false s'il n'existait pas
+    boolean delete(String id);
+
+    // Supprime plusieurs éléments ; retourne le nombre supprimé
+    long deleteAll(Collection<String> ids);
+}
@@ -0,0 +1,24 @@
+package services;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Événement JFR émis pour chaque appel de service mesuré par Metrics
+// (la pile d'appel enregistrée montre le contrôleur appelant et son thread)
+@Name("ems.ServiceCall")
+@Label("Service Call")
+@Category({"EMS", "Services"})
+@Description("Call to an EmployeeService, DepartmentService or LeaveService method")
+class ServiceCallEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Documents")
+    long documents;
+
+    @Label("Failed")
+    boolean failed;
+}
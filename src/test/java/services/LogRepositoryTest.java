@@ -0,0 +1,263 @@
+package services;
+
+import model.Employee;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stockage embarqué : relecture du journal à la réouverture, reprise après un enregistrement
+// interrompu ou corrompu, compactage, suppressions et mises à jour, pagination triée
+class LogRepositoryTest {
+    private static final String NAME = "employees";
+    // Longueur, CRC32 et type de chaque enregistrement (voir LogRepository)
+    private static final int HEADER_SIZE = 9;
+
+    @TempDir
+    Path directory;
+
+    private LogRepository<Employee> repository;
+
+    @AfterEach
+    void closeRepository() throws IOException {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void reopenReadsWrittenRecords() throws IOException {
+        repository = open();
+        Employee alice = employee("Alice", "Developer");
+        Employee bob = employee("Bob", "Manager");
+        repository.insert(alice);
+        repository.insert(bob);
+        bob.setPosition("Director");
+        repository.replace(bob);
+
+        repository = reopen();
+        assertEquals(2, repository.count());
+        assertSameEmployee(alice, repository.findById(alice.getId()));
+        assertSameEmployee(bob, repository.findById(bob.getId()));
+    }
+
+    @Test
+    void reopenStopsAtCorruptedTailRecord() throws IOException {
+        repository = open();
+        Employee alice = employee("Alice", "Developer");
+        Employee bob = employee("Bob", "Manager");
+        Employee carol = employee("Carol", "Analyst");
+        repository.insert(alice);
+        repository.insert(bob);
+        repository.insert(carol);
+        repository.close();
+
+        // Un octet du document de Carol modifié : son CRC ne correspond plus
+        long tail = recordSize(alice) + recordSize(bob);
+        try (FileChannel channel = FileChannel.open(file(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, tail + HEADER_SIZE + 10);
+            value.put(0, (byte) (value.get(0) ^ 0xFF)).rewind();
+            channel.write(value, tail + HEADER_SIZE + 10);
+        }
+
+        repository = open();
+        assertEquals(2, repository.count());
+        assertNull(repository.findById(carol.getId()));
+        assertSameEmployee(bob, repository.findById(bob.getId()));
+
+        // Les écritures suivantes remplacent l'enregistrement corrompu et sont relues
+        Employee dave = employee("Dave", "Tester");
+        repository.insert(dave);
+        repository = reopen();
+        assertEquals(3, repository.count());
+        assertSameEmployee(dave, repository.findById(dave.getId()));
+        assertNull(repository.findById(carol.getId()));
+    }
+
+    @Test
+    void reopenStopsAtTruncatedTailRecord() throws IOException {
+        repository = open();
+        Employee alice = employee("Alice", "Developer");
+        Employee bob = employee("Bob", "Manager");
+        repository.insert(alice);
+        repository.insert(bob);
+        repository.close();
+
+        // Arrêt brutal au milieu de l'écriture de Bob : seuls son en-tête et le début du document restent
+        try (FileChannel channel = FileChannel.open(file(0), StandardOpenOption.WRITE)) {
+            channel.truncate(recordSize(alice) + HEADER_SIZE + 5);
+        }
+
+        repository = open();
+        assertEquals(1, repository.count());
+        assertSameEmployee(alice, repository.findById(alice.getId()));
+        assertNull(repository.findById(bob.getId()));
+
+        repository.insert(bob);
+        repository = reopen();
+        assertEquals(2, repository.count());
+        assertSameEmployee(bob, repository.findById(bob.getId()));
+    }
+
+    @Test
+    void compactionKeepsLiveRecordsAcrossReopen() throws IOException {
+        repository = open();
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Employee emp = employee("Employee " + i, "Developer");
+            employees.add(emp);
+            repository.insert(emp);
+        }
+        repository.deleteAll(List.of(employees.get(0).getId(), employees.get(3).getId()));
+        repository.update(employees.get(1).getId(), "position", "Manager");
+        employees.get(1).setPosition("Manager");
+
+        repository.compact();
+        assertTrue(Files.exists(file(1)));
+        assertFalse(Files.exists(file(0)));
+
+        Employee added = employee("Added", "Tester");
+        repository.insert(added);
+        repository = reopen();
+        assertTrue(Files.exists(file(1)));
+        assertEquals(5, repository.count());
+        assertNull(repository.findById(employees.get(0).getId()));
+        assertNull(repository.findById(employees.get(3).getId()));
+        assertSameEmployee(employees.get(1), repository.findById(employees.get(1).getId()));
+        assertSameEmployee(employees.get(5), repository.findById(employees.get(5).getId()));
+        assertSameEmployee(added, repository.findById(added.getId()));
+    }
+
+    @Test
+    void deletesAndUpdatesSurviveReopen() throws IOException {
+        repository = open();
+        Employee alice = employee("Alice", "Developer");
+        Employee bob = employee("Bob", "Developer");
+        Employee carol = employee("Carol", "Developer");
+        repository.insertAll(List.of(alice, bob, carol));
+
+        assertTrue(repository.delete(alice.getId()));
+        assertFalse(repository.delete(alice.getId()));
+        assertNull(repository.update(alice.getId(), "position", "Manager"));
+        assertEquals(2, repository.updateAll(List.of(bob.getId(), carol.getId()), "position", "Developer", "Manager"));
+        assertEquals("Analyst", repository.update(carol.getId(), "position", "Analyst").getPosition());
+        // Une fois supprimé, l'identifiant peut être réutilisé
+        Employee returning = new Employee(alice.getId(), "Alice", alice.getEmail(), "Tester", null, null);
+        repository.insert(returning);
+
+        repository = reopen();
+        assertEquals(3, repository.count());
+        assertSameEmployee(returning, repository.findById(alice.getId()));
+        assertEquals("Manager", repository.findById(bob.getId()).getPosition());
+        assertEquals("Analyst", repository.findById(carol.getId()).getPosition());
+        assertEquals(1, repository.count(new Criteria().eq("position", "Manager")).getCount());
+        assertEquals(List.of(alice.getId(), bob.getId(), carol.getId()), ids(repository.findPage(null, 0, 10)));
+    }
+
+    @Test
+    void sortedPagesFollowKeysetOrderWithTies() throws IOException {
+        repository = open();
+        List<Employee> employees = new ArrayList<>();
+        String[] names = {"beta", "Alpha", "alpha", "Beta", "alpha", "gamma", "ALPHA", "beta", "Gamma"};
+        for (String name : names) {
+            Employee emp = employee(name, "Developer");
+            employees.add(emp);
+            repository.insert(emp);
+        }
+        Comparator<Employee> order = Comparator.comparing((Employee emp) -> Criteria.foldCase(emp.getName()))
+                .thenComparing(Employee::getId);
+        List<Employee> ascending = new ArrayList<>(employees);
+        ascending.sort(order);
+        List<Employee> descending = new ArrayList<>(employees);
+        descending.sort(order.reversed());
+
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertEquals(ids(ascending), ids(readAllPages(false, pageSize)), "page size " + pageSize);
+            assertEquals(ids(descending), ids(readAllPages(true, pageSize)), "page size " + pageSize);
+        }
+
+        // L'index de tri suit les écritures faites après sa construction
+        Employee renamed = ascending.get(0);
+        repository.update(renamed.getId(), "name", "zeta");
+        repository.delete(ascending.get(1).getId());
+        List<Employee> pages = readAllPages(false, 2);
+        assertEquals(employees.size() - 1, pages.size());
+        assertEquals(renamed.getId(), pages.get(pages.size() - 1).getId());
+    }
+
+    // Parcourt toutes les pages comme PagedList : chaque page part du dernier élément de la précédente,
+    // en le sautant
+    private List<Employee> readAllPages(boolean descending, int pageSize) {
+        List<Employee> all = new ArrayList<>();
+        Employee last = null;
+        while (true) {
+            Criteria criteria = new Criteria().sortBy("name", descending, true);
+            List<Employee> page = last == null
+                    ? repository.findPage(criteria, null, null, 0, pageSize)
+                    : repository.findPage(criteria, last.getName(), last.getId(), 1, pageSize);
+            all.addAll(page);
+            if (page.size() < pageSize) {
+                return all;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
+    private LogRepository<Employee> open() {
+        return new LogRepository<>(directory, NAME, new EmployeeCodec(), Employee::getId, true);
+    }
+
+    private LogRepository<Employee> reopen() throws IOException {
+        repository.close();
+        return open();
+    }
+
+    private Path file(int generation) {
+        return directory.resolve(NAME + "." + generation + ".log");
+    }
+
+    private static Employee employee(String name, String position) {
+        String id = new ObjectId().toHexString();
+        return new Employee(id, name, id + "@example.com", position, null, LocalDate.of(2020, 1, 15));
+    }
+
+    // Taille de l'enregistrement d'un employé dans le journal
+    private static long recordSize(Employee employee) {
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        new EmployeeCodec().encode(new BsonBinaryWriter(output), employee, EncoderContext.builder().build());
+        return HEADER_SIZE + output.getSize();
+    }
+
+    private static List<String> ids(List<Employee> employees) {
+        return employees.stream().map(Employee::getId).collect(Collectors.toList());
+    }
+
+    private static void assertSameEmployee(Employee expected, Employee actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.getHireDate(), actual.getHireDate());
+    }
+}
@@ -0,0 +1,296 @@
+package services;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import model.Department;
+import model.Employee;
+import model.LeaveRequest;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Vérifie avec explain() que les requêtes réellement envoyées par les services utilisent un index :
+// chaque appel de service est exécuté sur une base de test, les commandes de lecture enregistrées
+// par le profileur MongoDB sont rejouées avec explain, et le test échoue sur un COLLSCAN
+// (ou sur un tri en mémoire pour les tris qui ont leur propre index)
+// Serveur : -Dems.test.mongo.uri=mongodb://localhost:27017, à défaut un conteneur Docker ;
+// sans l'un ni l'autre, le test est ignoré
+class QueryPlanTest {
+    private static final String URI_PROPERTY = "ems.test.mongo.uri";
+    private static final String DATABASE = "ems_query_plan_test";
+    private static final Set<String> READ_COMMANDS = Set.of("find", "aggregate", "count", "distinct");
+    private static final String[] POSITIONS = {"Developer", "Manager", "Analyst", "Designer", "Tester"};
+    private static final String[] STATUSES = {"PENDING", "APPROVED", "REJECTED"};
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private static MongoDBContainer container;
+    private static MongoDatabase db;
+    private static EmployeeService employeeService;
+    private static LeaveService leaveService;
+    private static DepartmentService departmentService;
+    private static String departmentId;
+    private static String employeeId;
+    private static String leaveId;
+
+    @BeforeAll
+    static void startServer() {
+        String uri = System.getProperty(URI_PROPERTY);
+        if (uri == null || uri.trim().isEmpty()) {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                    "Neither -D" + URI_PROPERTY + " nor Docker available: query plans not checked");
+            container = new MongoDBContainer(DockerImageName.parse("mongo:7.0"));
+            container.start();
+            uri = container.getConnectionString();
+        }
+        System.clearProperty(Repositories.STORE_PROPERTY);
+        System.setProperty("mongo.uri", uri);
+        System.setProperty("mongo.database", DATABASE);
+        Repositories.shutdown();
+
+        db = MongoService.getInstance().getDatabase();
+        db.drop();
+        IndexManager.ensureIndexes();
+        seed();
+        startProfiler();
+
+        employeeService = new EmployeeService();
+        leaveService = new LeaveService();
+        departmentService = new DepartmentService();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (db != null) {
+            db.runCommand(new Document("profile", 0));
+            db.drop();
+        }
+        Repositories.shutdown();
+        MongoService.shutdown();
+        if (container != null) {
+            container.stop();
+        }
+        System.clearProperty("mongo.uri");
+        System.clearProperty("mongo.database");
+    }
+
+    @Test
+    void employeePagesUseIndexes() {
+        // Sans filtre, par département, par poste, par période d'embauche, département et poste
+        List<Supplier<EmployeeQuery>> filters = Arrays.asList(
+                EmployeeQuery::new,
+                () -> new EmployeeQuery().department(departmentId),
+                () -> new EmployeeQuery().position("Analyst"),
+                () -> new EmployeeQuery().hiredBetween(START.plusDays(100), START.plusDays(400)),
+                () -> new EmployeeQuery().department(departmentId).position("Manager"));
+        assertIndexed("employee page", () -> {
+            List<Employee> page = employeeService.findPage(null, 0, 50);
+            employeeService.findPage(page.get(page.size() - 1), 1, 50);
+        }, true);
+        for (int i = 0; i < filters.size(); i++) {
+            Supplier<EmployeeQuery> filter = filters.get(i);
+            // Sans tri, les pages filtrées par département suivent l'index (departmentId, _id)
+            assertIndexed("employee page, filter " + i, () -> pageThrough(filter.get()), i <= 1);
+            for (String field : Arrays.asList("name", "email", "position", "hireDate")) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    // Chaque tri a son index sans filtre, et le tri par nom dans un département aussi
+                    boolean sortIndexed = i == 0 || i == 1 && field.equals("name");
+                    assertIndexed("employee page, filter " + i + ", sorted by " + field + (descending ? " desc" : ""),
+                            () -> pageThrough(filter.get().sortBy(field, descending)), sortIndexed);
+                }
+            }
+            if (i > 0) {
+                assertIndexed("employee count, filter " + i, () -> employeeService.count(filter.get()), false);
+            }
+        }
+    }
+
+    @Test
+    void employeeLookupsUseIndexes() {
+        assertIndexed("employee by id", () -> employeeService.findById(employeeId), false);
+        assertIndexed("employee names by ids", () -> employeeService.findNamesByIds(
+                Arrays.asList(employeeId, new ObjectId().toString())), false);
+        assertIndexed("employee summaries", () -> employeeService.findSummaries(), true);
+        assertIndexed("employee positions", () -> employeeService.findPositions(), false);
+        assertIndexed("employee by email", () -> employeeService.findByEmail("EMPLOYEE42@example.com"), false);
+        assertIndexed("existing emails", () -> employeeService.findExistingEmails(
+                Arrays.asList("employee7@example.com", "nobody@example.com")), false);
+        assertIndexed("employees by department", () -> employeeService.findByDepartmentId(departmentId), false);
+    }
+
+    @Test
+    void leavePagesUseIndexes() {
+        // Sans filtre, par statut, par employé, par fenêtre de dates, statut et fenêtre
+        List<Supplier<LeaveQuery>> filters = Arrays.asList(
+                LeaveQuery::new,
+                () -> new LeaveQuery().status("PENDING"),
+                () -> new LeaveQuery().employee(employeeId),
+                () -> new LeaveQuery().during(START.plusDays(200), START.plusDays(230)),
+                () -> new LeaveQuery().status("APPROVED").during(START.plusDays(10), START.plusDays(40)));
+        assertIndexed("leave page", () -> {
+            List<LeaveRequest> page = leaveService.findPage(null, 0, 50);
+            leaveService.findPage(page.get(page.size() - 1), 1, 50);
+        }, true);
+        for (int i = 0; i < filters.size(); i++) {
+            Supplier<LeaveQuery> filter = filters.get(i);
+            // Sans tri, les pages filtrées par statut suivent l'index (status, _id)
+            assertIndexed("leave page, filter " + i, () -> pageThrough(filter.get()), i <= 1);
+            for (String field : Arrays.asList("startDate", "endDate", "status")) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    assertIndexed("leave page, filter " + i + ", sorted by " + field + (descending ? " desc" : ""),
+                            () -> pageThrough(filter.get().sortBy(field, descending)), i == 0);
+                }
+            }
+            if (i > 0) {
+                assertIndexed("leave count, filter " + i, () -> leaveService.count(filter.get()), false);
+            }
+        }
+    }
+
+    @Test
+    void leaveLookupsUseIndexes() {
+        assertIndexed("leave counts by status", () -> leaveService.countByStatus(), false);
+        assertIndexed("leave by id", () -> leaveService.findById(leaveId), false);
+        assertIndexed("leave overlaps", () -> leaveService.findOverlaps(new LeaveRequest(null, employeeId, null,
+                START.plusDays(30), START.plusDays(60), null, "PENDING")), false);
+    }
+
+    @Test
+    void departmentLookupsUseIndexes() {
+        assertIndexed("department summaries", () -> departmentService.findSummaries(), true);
+        assertIndexed("department by id", () -> departmentService.findById(departmentId), false);
+    }
+
+    // Première page puis page suivante (point de départ keyset)
+    private static void pageThrough(EmployeeQuery query) {
+        List<Employee> page = employeeService.findPage(query, null, 0, 20);
+        if (!page.isEmpty()) {
+            employeeService.findPage(query, page.get(page.size() - 1), 1, 20);
+        }
+    }
+
+    private static void pageThrough(LeaveQuery query) {
+        List<LeaveRequest> page = leaveService.findPage(query, null, 0, 20);
+        if (!page.isEmpty()) {
+            leaveService.findPage(query, page.get(page.size() - 1), 1, 20);
+        }
+    }
+
+    // Rejoue chaque lecture faite par "call" avec explain et échoue sur un parcours de collection
+    // (et sur un tri en mémoire si "sortIndexed")
+    private static void assertIndexed(String description, Runnable call, boolean sortIndexed) {
+        List<Document> commands = readsOf(call);
+        if (commands.isEmpty()) {
+            fail(description + ": no query recorded by the profiler");
+        }
+        for (Document command : commands) {
+            Document explain = db.runCommand(new Document("explain", command).append("verbosity", "queryPlanner"));
+            assertFalse(containsStage(explain, "COLLSCAN"), description + " scans the collection: " + command.toJson());
+            if (sortIndexed) {
+                assertFalse(containsStage(explain, "SORT"), description + " sorts in memory: " + command.toJson());
+            }
+        }
+    }
+
+    // Commandes de lecture envoyées pendant "call", telles qu'enregistrées par le profileur
+    private static List<Document> readsOf(Runnable call) {
+        MongoCollection<Document> profile = db.getCollection("system.profile");
+        int seen = (int) profile.countDocuments();
+        call.run();
+        List<Document> commands = new ArrayList<>();
+        for (Document entry : profile.find().sort(new Document("$natural", 1)).skip(seen)) {
+            Document command = entry.get("command", Document.class);
+            String ns = entry.getString("ns");
+            if (command == null || ns == null || ns.endsWith(".system.profile")
+                    || !READ_COMMANDS.contains(command.keySet().iterator().next())) {
+                continue;
+            }
+            // Champs de session et de transport refusés par explain
+            Document replay = new Document();
+            for (Map.Entry<String, Object> field : command.entrySet()) {
+                String name = field.getKey();
+                if (!name.startsWith("$") && !name.equals("lsid") && !name.equals("readConcern")) {
+                    replay.append(name, field.getValue());
+                }
+            }
+            commands.add(replay);
+        }
+        return commands;
+    }
+
+    // Recherche récursive d'une étape ("stage") dans un plan d'exécution
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document) {
+            Document doc = (Document) node;
+            if (stage.equals(doc.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : doc.entrySet()) {
+                // Les plans rejetés ne comptent pas
+                if (!"rejectedPlans".equals(entry.getKey()) && containsStage(entry.getValue(), stage)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List) {
+            for (Object child : (List<?>) node) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Profileur de la base de test : toutes les opérations, dans une collection assez grande pour le test
+    private static void startProfiler() {
+        db.runCommand(new Document("profile", 0));
+        db.getCollection("system.profile").drop();
+        db.createCollection("system.profile", new CreateCollectionOptions().capped(true).sizeInBytes(64L << 20));
+        db.runCommand(new Document("profile", 2));
+    }
+
+    // Assez de documents pour que le planificateur choisisse entre les index comme en production
+    private static void seed() {
+        List<Department> departments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            departments.add(new Department(new ObjectId().toString(), "Department " + i, null));
+        }
+        Repositories.departments().insertAll(departments);
+        departmentId = departments.get(3).getId();
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            employees.add(new Employee(new ObjectId().toString(), "Employee " + (i * 7919 % 2000),
+                    "employee" + i + "@example.com", POSITIONS[i % POSITIONS.length],
+                    departments.get(i % departments.size()).getId(), START.plusDays(i % 700)));
+        }
+        Repositories.employees().insertAll(employees);
+        employeeId = employees.get(42).getId();
+
+        List<LeaveRequest> leaves = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            LocalDate start = START.plusDays(i % 365);
+            leaves.add(new LeaveRequest(new ObjectId().toString(), employees.get(i % employees.size()).getId(), null,
+                    start, start.plusDays(i % 10), "Leave " + i, STATUSES[i % STATUSES.length]));
+        }
+        Repositories.leaves().insertAll(leaves);
+        leaveId = leaves.get(7).getId();
+    }
+}